@@ -27,6 +27,7 @@ public class BoardActivity extends AppCompatActivity {
     final BoardView boardView = (BoardView) findViewById(R.id.boardView);
     boardView.setBoardSize(4, 4);
     boardView.setCellPadding(1);
+    boardView.setRestoreMode(BoardView.RESTORE_MODE_OPTIMAL);
 
     findViewById(R.id.shuffle_button).setOnClickListener(new View.OnClickListener() {
       @Override
@@ -45,8 +46,8 @@ public class BoardActivity extends AppCompatActivity {
     final TextView headerTitle = (TextView) findViewById(R.id.headerTitleView);
     boardView.setOnMovedListener(new BoardView.OnMovedListener() {
       @Override
-      public void onMoved() {
-        headerTitle.setText(String.format("%03d", boardView.getPuzzleSteps()));
+      public void onMoved(int count, int fromSteps, int toSteps) {
+        headerTitle.setText(String.format("%03d", toSteps));
       }
     });
   }
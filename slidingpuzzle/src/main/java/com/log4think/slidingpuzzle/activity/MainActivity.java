@@ -6,6 +6,7 @@ import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 
 import com.log4think.slidingpuzzle.R;
+import com.log4think.slidingpuzzle.view.BoardView;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -14,6 +15,9 @@ public class MainActivity extends AppCompatActivity {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_main);
 
+    // have the picture decoded before the board is launched
+    BoardView.prewarm(this, 4, 4);
+
     findViewById(R.id.launchBoard).setOnClickListener(new View.OnClickListener() {
       @Override
       public void onClick(View v) {
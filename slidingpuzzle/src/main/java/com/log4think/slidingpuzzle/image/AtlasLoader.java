@@ -0,0 +1,205 @@
+package com.log4think.slidingpuzzle.image;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Point;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.DisplayMetrics;
+
+import com.log4think.slidingpuzzle.utils.Log;
+import com.log4think.slidingpuzzle.utils.Utils;
+
+/**
+ * Decodes and slices pictures on a background thread and hands the {@link TileAtlas} to the main
+ * thread.
+ *
+ * There is one loader per process, so a board can be pre-warmed by {@link #prefetch} before its
+ * activity starts; the jobs run one after the other, so a load queued behind the prefetch of the
+ * same picture finds its bitmap already decoded. Everything goes through the {@link ImageCache},
+ * and an atlas found there is handed over right away. A request that is cancelled before it runs
+ * is never decoded, and its callback isn't called any more once it is cancelled.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class AtlasLoader {
+  private static final String TAG = Log.tag(AtlasLoader.class);
+
+  private static AtlasLoader instance;
+
+  public interface Callback {
+    /**
+     * on the main thread. The picture of the atlas is retained for the receiver, which has to
+     * {@link ImageCache#release(Bitmap)} it once it doesn't draw it any more.
+     */
+    void onLoaded(TileAtlas atlas);
+
+    /**
+     * on the main thread
+     */
+    void onFailed(IOException e);
+  }
+
+  private final ExecutorService executor;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final Context context;
+  private final ImageCache cache;
+
+  /**
+   * the process wide loader, only call it from the main thread
+   */
+  public static AtlasLoader getInstance(Context context) {
+    if (instance == null) {
+      instance = new AtlasLoader(context.getApplicationContext(), ImageCache.getInstance());
+    }
+    return instance;
+  }
+
+  /**
+   * the largest board of the size that fits the short side of the screen, for picking the
+   * picture size before a board is measured
+   */
+  public static Point getScreenFitSize(Resources resources, int colCount, int rowCount) {
+    DisplayMetrics metrics = resources.getDisplayMetrics();
+    int cellSize = Math.min(metrics.widthPixels, metrics.heightPixels) / Math.max(colCount, rowCount);
+    return new Point(Math.max(cellSize * colCount, 1), Math.max(cellSize * rowCount, 1));
+  }
+
+  AtlasLoader(Context context, ImageCache cache) {
+    this.context = context;
+    this.cache = cache;
+    executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+          }
+        }, "AtlasLoader");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * @param width the width the picture is shown at
+   * @param height the height the picture is shown at
+   * @param callback called once on the main thread, unless the request is cancelled first;
+   * before this returns if the atlas is cached
+   * @return the pending request, or null if the atlas was cached
+   */
+  public Request load(final ImageSource source, final int colCount, final int rowCount, final int width,
+                      final int height, final Callback callback) {
+    TileAtlas cached = cache.retainAtlas(source, width, height, colCount, rowCount);
+    if (cached != null) {
+      Log.d(TAG, "%s cached, %d hits, %d misses", source, cache.getHitCount(), cache.getMissCount());
+      callback.onLoaded(cached);
+      return null;
+    }
+
+    final Request request = new Request();
+    request.future = executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        if (request.isCancelled()) {
+          return;
+        }
+
+        TileAtlas atlas = null;
+        IOException error = null;
+        try {
+          atlas = getAtlas(source, colCount, rowCount, width, height);
+        } catch (IOException e) {
+          error = e;
+        }
+
+        final TileAtlas result = atlas;
+        final IOException failure = error;
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            if (request.isCancelled()) {
+              if (result != null) {
+                cache.release(result.getBitmap());
+              }
+              return;
+            }
+            if (result != null) {
+              callback.onLoaded(result);
+            } else {
+              callback.onFailed(failure);
+            }
+          }
+        });
+      }
+    });
+    return request;
+  }
+
+  /**
+   * decode the picture ahead of time, so a load of it right after finds it in the cache
+   */
+  public void prefetch(final ImageSource source, final int colCount, final int rowCount, final int width,
+                       final int height) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          TileAtlas atlas = getAtlas(source, colCount, rowCount, width, height);
+          cache.release(atlas.getBitmap());
+        } catch (IOException e) {
+          Log.w(TAG, "can't prefetch %s: %s", source, e.getMessage());
+        }
+      }
+    });
+  }
+
+  /**
+   * on the loader thread
+   *
+   * @return the atlas, its picture retained for the caller, so no eviction pools it before it
+   * is handed over
+   */
+  private TileAtlas getAtlas(ImageSource source, int colCount, int rowCount, int width, int height)
+      throws IOException {
+    TileAtlas atlas;
+    Bitmap bitmap = cache.retainBitmap(source, width, height);
+    if (bitmap != null) {
+      atlas = new TileAtlas(bitmap, colCount, rowCount);
+    } else {
+      atlas = Utils.sliceBitmap(context, source, colCount, rowCount, width, height);
+      cache.retain(atlas.getBitmap());
+      cache.putBitmap(source, width, height, atlas.getBitmap());
+    }
+    cache.putAtlas(source, width, height, atlas);
+    return atlas;
+  }
+
+  public static final class Request {
+    private volatile boolean cancelled;
+    private Future<?> future;
+
+    /**
+     * drop the request, from the main thread
+     */
+    public void cancel() {
+      cancelled = true;
+      future.cancel(false);
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.log4think.slidingpuzzle.image;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import com.log4think.slidingpuzzle.utils.Log;
+
+/**
+ * Bitmaps nobody draws any more, bucketed by their size in bytes, handed to the next decode as
+ * {@link BitmapFactory.Options#inBitmap} so it writes into their pixels instead of allocating.
+ *
+ * From KitKat on any bitmap at least as large as the decoded picture will do, the smallest one is
+ * taken. Before that the decode has to be unsampled and of exactly the same size and config.
+ * When the pool is full the largest bitmaps are left to the GC first.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class BitmapPool {
+  private static final String TAG = Log.tag(BitmapPool.class);
+
+  private static BitmapPool instance;
+
+  private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<Integer, ArrayDeque<Bitmap>>();
+  private final long maxSize;
+  private long size;
+
+  public static synchronized BitmapPool getInstance() {
+    if (instance == null) {
+      instance = new BitmapPool(Runtime.getRuntime().maxMemory() / 16);
+    }
+    return instance;
+  }
+
+  /**
+   * @param maxSize the most the pooled bitmaps may take, in bytes
+   */
+  public BitmapPool(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * give the bitmap to the pool, nothing may draw it from now on. A bitmap that is pooled already
+   * is ignored, two decodes must never write into the same one.
+   */
+  public synchronized void put(Bitmap bitmap) {
+    if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+      return;
+    }
+
+    int byteCount = bitmap.getByteCount();
+    ArrayDeque<Bitmap> bucket = buckets.get(byteCount);
+    if (bucket == null) {
+      bucket = new ArrayDeque<Bitmap>();
+      buckets.put(byteCount, bucket);
+    } else if (bucket.contains(bitmap)) {
+      return;
+    }
+    bucket.add(bitmap);
+    size += byteCount;
+
+    while (size > maxSize) {
+      Map.Entry<Integer, ArrayDeque<Bitmap>> largest = buckets.lastEntry();
+      largest.getValue().poll();
+      size -= largest.getKey();
+      if (largest.getValue().isEmpty()) {
+        buckets.remove(largest.getKey());
+      }
+    }
+  }
+
+  /**
+   * let the decode of a picture of the size write into a pooled bitmap, if one fits. Decoded
+   * bitmaps are made mutable either way, so they can come back to the pool.
+   *
+   * @param width the width of the decoded picture, after sampling
+   * @param height the height of the decoded picture, after sampling
+   * @return whether a pooled bitmap is set as inBitmap; if the decode rejects it, hand it back by
+   * {@link #put(Bitmap)}
+   */
+  public synchronized boolean prepare(BitmapFactory.Options options, int width, int height) {
+    options.inMutable = true;
+    Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+
+    Bitmap bitmap = null;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      Map.Entry<Integer, ArrayDeque<Bitmap>> entry = buckets.ceilingEntry(width * height * getBytesPerPixel(config));
+      if (entry != null) {
+        bitmap = entry.getValue().peek();
+      }
+    } else if (options.inSampleSize <= 1) {
+      ArrayDeque<Bitmap> bucket = buckets.get(width * height * getBytesPerPixel(config));
+      if (bucket != null) {
+        for (Bitmap candidate : bucket) {
+          if (candidate.getWidth() == width && candidate.getHeight() == height && candidate.getConfig() == config) {
+            bitmap = candidate;
+            break;
+          }
+        }
+      }
+    }
+
+    options.inBitmap = bitmap;
+    if (bitmap != null) {
+      remove(bitmap);
+      Log.d(TAG, "reusing %dx%d for %dx%d", bitmap.getWidth(), bitmap.getHeight(), width, height);
+    }
+    return bitmap != null;
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  public synchronized void clear() {
+    buckets.clear();
+    size = 0;
+  }
+
+  private void remove(Bitmap bitmap) {
+    int byteCount = bitmap.getByteCount();
+    ArrayDeque<Bitmap> bucket = buckets.get(byteCount);
+    bucket.remove(bitmap);
+    size -= byteCount;
+    if (bucket.isEmpty()) {
+      buckets.remove(byteCount);
+    }
+  }
+
+  private static int getBytesPerPixel(Bitmap.Config config) {
+    switch (config) {
+      case ALPHA_8:
+        return 1;
+      case RGB_565:
+      case ARGB_4444:
+        return 2;
+      default:
+        return 4;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.log4think.slidingpuzzle.image;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.log4think.slidingpuzzle.utils.Log;
+
+/**
+ * Downscaled copies of pictures in the cache directory, so a large photo is only decoded once at
+ * full size. A copy is a small JPEG, or a PNG if the picture has transparency, which decodes in a
+ * fraction of the time of the original.
+ *
+ * The files take at most {@link #MAX_SIZE} bytes; the least recently used go first, by their
+ * modification time, which every read refreshes.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class DiskImageCache {
+  private static final String TAG = Log.tag(DiskImageCache.class);
+  private static final String DIRECTORY = "images";
+  private static final long MAX_SIZE = 32L * 1024 * 1024;
+  private static final int JPEG_QUALITY = 90;
+
+  private static DiskImageCache instance;
+
+  private final File directory;
+  private final long maxSize;
+
+  public static synchronized DiskImageCache getInstance(Context context) {
+    if (instance == null) {
+      instance = new DiskImageCache(new File(context.getCacheDir(), DIRECTORY), MAX_SIZE);
+    }
+    return instance;
+  }
+
+  public DiskImageCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the picture stored under the key, or null
+   */
+  public synchronized Bitmap get(String key) {
+    File file = getFile(key);
+    if (!file.exists()) {
+      return null;
+    }
+
+    Bitmap bitmap = null;
+    try {
+      bitmap = ImageLoader.decodeFile(file);
+    } catch (IOException e) {
+      Log.w(TAG, e);
+    }
+    if (bitmap == null) {
+      Log.w(TAG, "dropping unreadable %s", file);
+      file.delete();
+      return null;
+    }
+    file.setLastModified(System.currentTimeMillis());
+    return bitmap;
+  }
+
+  /**
+   * store the picture under the key, a failure only leaves it out of the cache
+   */
+  public synchronized void put(String key, Bitmap bitmap) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      Log.w(TAG, "can't create %s", directory);
+      return;
+    }
+
+    File file = getFile(key);
+    File temp = new File(directory, file.getName() + ".tmp");
+    try {
+      OutputStream out = new FileOutputStream(temp);
+      try {
+        if (bitmap.hasAlpha()) {
+          bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } else {
+          bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        }
+      } finally {
+        out.close();
+      }
+      // readers never see a file half written
+      if (!temp.renameTo(file)) {
+        throw new IOException("can't rename " + temp + " to " + file);
+      }
+    } catch (IOException e) {
+      Log.w(TAG, e);
+      temp.delete();
+      return;
+    }
+    trim();
+  }
+
+  public synchronized void clear() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  private void trim() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    long size = 0;
+    for (File file : files) {
+      size += file.length();
+    }
+    if (size <= maxSize) {
+      return;
+    }
+
+    Arrays.sort(files, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        long ta = a.lastModified(), tb = b.lastModified();
+        return ta < tb ? -1 : (ta > tb ? 1 : 0);
+      }
+    });
+    for (int i = 0; i < files.length && size > maxSize; i++) {
+      size -= files[i].length();
+      files[i].delete();
+    }
+  }
+
+  private File getFile(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes("UTF-8"));
+      StringBuilder name = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return new File(directory, name.toString());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
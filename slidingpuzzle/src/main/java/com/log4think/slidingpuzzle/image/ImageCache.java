@@ -0,0 +1,215 @@
+package com.log4think.slidingpuzzle.image;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import com.log4think.slidingpuzzle.utils.Log;
+
+/**
+ * Process wide memory cache of decoded pictures and the atlases cut from them, so an activity
+ * that is recreated, after a rotation or when the puzzle is opened again, finds its picture
+ * without decoding it.
+ *
+ * Pictures are keyed by their source and the size they were decoded for, and take at most an
+ * eighth of the heap, least recently used first out. Atlases are keyed by the board size on top
+ * of that; they only refer to a cached picture and go with it.
+ *
+ * Boards {@link #retain(Bitmap)} the pictures they draw, lookups retain what they find in the
+ * same step. A picture that is neither cached nor drawn any more goes to the {@link BitmapPool},
+ * for the next decode to write into. Both are tracked under the lock of the cache, so an
+ * eviction and a release of the same picture agree on who pools it. A picture larger than the
+ * whole cache isn't cached at all.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ImageCache {
+  private static final String TAG = Log.tag(ImageCache.class);
+  private static final int MAX_ATLASES = 16;
+
+  private static ImageCache instance;
+
+  private final LruCache<String, Bitmap> bitmaps;
+  private final LruCache<String, TileAtlas> atlases;
+  private final BitmapPool pool;
+  // how many boards draw each picture
+  private final Map<Bitmap, Integer> users = new IdentityHashMap<Bitmap, Integer>();
+  // the pictures in bitmaps, LruCache drops an entry before it tells entryRemoved
+  private final Set<Bitmap> cached = Collections.newSetFromMap(new IdentityHashMap<Bitmap, Boolean>());
+  private int hitCount, missCount;
+
+  public static synchronized ImageCache getInstance() {
+    if (instance == null) {
+      instance = new ImageCache((int) (Runtime.getRuntime().maxMemory() / 1024 / 8), BitmapPool.getInstance());
+    }
+    return instance;
+  }
+
+  /**
+   * @param maxSizeKb the most the cached pictures may take, in kilobytes
+   * @param pool receives the pictures nobody uses any more
+   */
+  public ImageCache(int maxSizeKb, BitmapPool pool) {
+    this.pool = pool;
+    atlases = new LruCache<String, TileAtlas>(MAX_ATLASES);
+    bitmaps = new LruCache<String, Bitmap>(maxSizeKb) {
+      @Override
+      protected int sizeOf(String key, Bitmap bitmap) {
+        return getSizeKb(bitmap);
+      }
+
+      @Override
+      protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+        if (oldValue == newValue) {
+          return;
+        }
+
+        synchronized (ImageCache.this) {
+          // the atlases would keep the picture alive
+          for (String atlasKey : atlases.snapshot().keySet()) {
+            if (atlasKey.startsWith(key + "#")) {
+              atlases.remove(atlasKey);
+            }
+          }
+          cached.remove(oldValue);
+          recycleIfUnused(oldValue);
+        }
+      }
+    };
+    Log.d(TAG, "cache of %d KB", maxSizeKb);
+  }
+
+  /**
+   * @return the picture decoded for the size, retained for the caller, or null, which counts as
+   * a miss
+   */
+  public synchronized Bitmap retainBitmap(ImageSource source, int width, int height) {
+    Bitmap bitmap = bitmaps.get(getKey(source, width, height));
+    count(bitmap != null);
+    if (bitmap != null) {
+      retain(bitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * the caller retains the picture first, putting it may evict it right away
+   */
+  public void putBitmap(ImageSource source, int width, int height, Bitmap bitmap) {
+    // it would push out every other picture and then itself
+    if (getSizeKb(bitmap) > bitmaps.maxSize()) {
+      Log.w(TAG, "%s is larger than the cache, not cached", source);
+      return;
+    }
+    synchronized (this) {
+      cached.add(bitmap);
+    }
+    bitmaps.put(getKey(source, width, height), bitmap);
+  }
+
+  /**
+   * @return the atlas of the picture decoded for the size and cut for the board, with the
+   * picture retained for the caller, or null, which isn't counted since a cached picture may
+   * still be cut
+   */
+  public synchronized TileAtlas retainAtlas(ImageSource source, int width, int height, int colCount,
+                                            int rowCount) {
+    TileAtlas atlas = atlases.get(getKey(source, width, height) + "#" + colCount + "x" + rowCount);
+    if (atlas != null) {
+      count(true);
+      retain(atlas.getBitmap());
+    }
+    return atlas;
+  }
+
+  /**
+   * keep the atlas as long as its picture is cached
+   */
+  public synchronized void putAtlas(ImageSource source, int width, int height, TileAtlas atlas) {
+    String key = getKey(source, width, height);
+    if (bitmaps.get(key) == atlas.getBitmap()) {
+      atlases.put(key + "#" + atlas.getColCount() + "x" + atlas.getRowCount(), atlas);
+    }
+  }
+
+  /**
+   * a board draws the picture from now on, it isn't pooled before the board releases it
+   */
+  public synchronized void retain(Bitmap bitmap) {
+    Integer count = users.get(bitmap);
+    users.put(bitmap, count == null ? 1 : count + 1);
+  }
+
+  /**
+   * a board doesn't draw the picture any more
+   */
+  public synchronized void release(Bitmap bitmap) {
+    Integer count = users.get(bitmap);
+    if (count == null) {
+      throw new IllegalStateException("bitmap isn't retained");
+    }
+    if (count > 1) {
+      users.put(bitmap, count - 1);
+      return;
+    }
+    users.remove(bitmap);
+    if (!cached.contains(bitmap)) {
+      pool.put(bitmap);
+    }
+  }
+
+  /**
+   * @return the lookups that needed no decoding
+   */
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the lookups that had to decode
+   */
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the size of the cached pictures in kilobytes
+   */
+  public int getSize() {
+    return bitmaps.size();
+  }
+
+  public void clear() {
+    bitmaps.evictAll();
+    atlases.evictAll();
+  }
+
+  /**
+   * under the lock of the cache
+   */
+  private void recycleIfUnused(Bitmap bitmap) {
+    if (!users.containsKey(bitmap)) {
+      pool.put(bitmap);
+    }
+  }
+
+  private synchronized void count(boolean hit) {
+    if (hit) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+  }
+
+  private static int getSizeKb(Bitmap bitmap) {
+    return Math.max(bitmap.getByteCount() / 1024, 1);
+  }
+
+  private static String getKey(ImageSource source, int width, int height) {
+    return source.getKey() + "@" + width + "x" + height;
+  }
+}
@@ -0,0 +1,200 @@
+package com.log4think.slidingpuzzle.image;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import com.log4think.slidingpuzzle.utils.Log;
+
+/**
+ * Decodes a picture no larger than it is shown.
+ *
+ * The bounds are read first, then the picture is decoded with the largest power of two
+ * inSampleSize that still leaves the requested size, so a board never holds more than about four
+ * times its own pixels whatever the file is. Very large pictures, camera photos mostly, go through
+ * {@link BitmapRegionDecoder} instead: it decodes tile by tile and only the middle part with the
+ * aspect ratio of the board, so not even the sampled whole picture has to fit in memory.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public final class ImageLoader {
+  private static final String TAG = Log.tag(ImageLoader.class);
+  // above this many pixels only the part of the picture the board shows is decoded
+  private static final long LARGE_IMAGE_PIXELS = 2048 * 2048;
+
+  private ImageLoader() {
+    // empty
+  }
+
+  /**
+   * @param width the width the picture is shown at, in pixels
+   * @param height the height the picture is shown at, in pixels
+   * @throws IOException if the source can't be read or isn't a picture
+   */
+  public static Bitmap decode(ImageSource source, int width, int height) throws IOException {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("invalid size " + width + "x" + height);
+    }
+
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    decodeStream(source, options);
+    int imageWidth = options.outWidth, imageHeight = options.outHeight;
+    if (imageWidth <= 0 || imageHeight <= 0) {
+      throw new IOException(source + " isn't a picture");
+    }
+
+    options.inJustDecodeBounds = false;
+    // sample the pixels of the file, not the ones scaled to the screen density
+    options.inScaled = false;
+
+    Bitmap bitmap = null;
+    if ((long) imageWidth * imageHeight > LARGE_IMAGE_PIXELS) {
+      bitmap = decodeRegion(source, imageWidth, imageHeight, width, height, options);
+    }
+    if (bitmap == null) {
+      options.inSampleSize = getSampleSize(imageWidth, imageHeight, width, height);
+      bitmap = decodePooled(source, options, getSampledSize(imageWidth, options.inSampleSize),
+          getSampledSize(imageHeight, options.inSampleSize));
+    }
+    if (bitmap == null) {
+      throw new IOException("can't decode " + source);
+    }
+
+    Log.d(TAG, "decoded %s of %dx%d to %dx%d for %dx%d", source, imageWidth, imageHeight,
+        bitmap.getWidth(), bitmap.getHeight(), width, height);
+    return bitmap;
+  }
+
+  /**
+   * decode a file as it is, into a pooled bitmap if one fits
+   *
+   * @return null if the file isn't a picture
+   */
+  static Bitmap decodeFile(File file) throws IOException {
+    ImageSource source = ImageSource.of(file);
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inJustDecodeBounds = true;
+    decodeStream(source, options);
+    if (options.outWidth <= 0 || options.outHeight <= 0) {
+      return null;
+    }
+
+    options.inJustDecodeBounds = false;
+    return decodePooled(source, options, options.outWidth, options.outHeight);
+  }
+
+  /**
+   * @return the largest power of two that keeps the image at least as large as requested
+   */
+  public static int getSampleSize(int imageWidth, int imageHeight, int width, int height) {
+    int sampleSize = 1;
+    while (imageWidth / (sampleSize * 2) >= width && imageHeight / (sampleSize * 2) >= height) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  /**
+   * @return the middle part of the image with the aspect ratio of the requested size, or null if
+   * the format can't be decoded by regions
+   */
+  private static Bitmap decodeRegion(ImageSource source, int imageWidth, int imageHeight, int width, int height,
+                                     BitmapFactory.Options options) throws IOException {
+    int regionWidth = imageWidth, regionHeight = imageHeight;
+    if ((long) imageWidth * height > (long) imageHeight * width) {
+      regionWidth = (int) ((long) imageHeight * width / height);
+    } else {
+      regionHeight = (int) ((long) imageWidth * height / width);
+    }
+    int left = (imageWidth - regionWidth) / 2, top = (imageHeight - regionHeight) / 2;
+    Rect region = new Rect(left, top, left + regionWidth, top + regionHeight);
+    options.inSampleSize = getSampleSize(regionWidth, regionHeight, width, height);
+
+    InputStream in = source.open();
+    try {
+      BitmapRegionDecoder decoder;
+      try {
+        decoder = BitmapRegionDecoder.newInstance(in, false);
+      } catch (IOException e) {
+        Log.d(TAG, "no region decoder for %s", source);
+        return null;
+      }
+      try {
+        BitmapPool pool = BitmapPool.getInstance();
+        if (pool.prepare(options, getSampledSize(regionWidth, options.inSampleSize),
+            getSampledSize(regionHeight, options.inSampleSize))) {
+          Bitmap bitmap = decodeRegion(decoder, region, options);
+          if (bitmap != null) {
+            return bitmap;
+          }
+          pool.put(options.inBitmap);
+          options.inBitmap = null;
+        }
+        return decoder.decodeRegion(region, options);
+      } finally {
+        decoder.recycle();
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @return null if the decoder refuses the inBitmap
+   */
+  private static Bitmap decodeRegion(BitmapRegionDecoder decoder, Rect region, BitmapFactory.Options options) {
+    try {
+      return decoder.decodeRegion(region, options);
+    } catch (IllegalArgumentException e) {
+      Log.d(TAG, "pooled bitmap refused: %s", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * decode into a pooled bitmap if one fits, or into a new one if the decoder refuses it
+   *
+   * @param width the width of the decoded picture, after sampling
+   * @param height the height of the decoded picture, after sampling
+   */
+  private static Bitmap decodePooled(ImageSource source, BitmapFactory.Options options, int width, int height)
+      throws IOException {
+    BitmapPool pool = BitmapPool.getInstance();
+    if (pool.prepare(options, width, height)) {
+      Bitmap bitmap = null;
+      try {
+        bitmap = decodeStream(source, options);
+      } catch (IllegalArgumentException e) {
+        Log.d(TAG, "pooled bitmap refused: %s", e.getMessage());
+      }
+      if (bitmap != null) {
+        return bitmap;
+      }
+      pool.put(options.inBitmap);
+      options.inBitmap = null;
+    }
+    return decodeStream(source, options);
+  }
+
+  /**
+   * rounded up, the decoders don't agree on the rounding
+   */
+  private static int getSampledSize(int size, int sampleSize) {
+    return (size + sampleSize - 1) / sampleSize;
+  }
+
+  private static Bitmap decodeStream(ImageSource source, BitmapFactory.Options options) throws IOException {
+    InputStream in = source.open();
+    try {
+      return BitmapFactory.decodeStream(in, null, options);
+    } finally {
+      in.close();
+    }
+  }
+}
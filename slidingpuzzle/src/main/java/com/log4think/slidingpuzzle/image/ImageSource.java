@@ -0,0 +1,94 @@
+package com.log4think.slidingpuzzle.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.ContentResolver;
+import android.content.res.Resources;
+import android.net.Uri;
+
+/**
+ * Where a picture comes from, a resource shipped with the app or anything a content resolver
+ * can open. The stream is opened again for every pass over the file.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public abstract class ImageSource {
+
+  public static ImageSource of(final Resources resources, final int resourceId) {
+    return new ImageSource("res:" + resourceId, true) {
+      @Override
+      public InputStream open() throws IOException {
+        try {
+          return resources.openRawResource(resourceId);
+        } catch (Resources.NotFoundException e) {
+          throw new FileNotFoundException("no resource " + resourceId);
+        }
+      }
+    };
+  }
+
+  public static ImageSource of(final ContentResolver resolver, final Uri uri) {
+    return new ImageSource(uri.toString(), false) {
+      @Override
+      public InputStream open() throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+          throw new FileNotFoundException("can't open " + uri);
+        }
+        return in;
+      }
+    };
+  }
+
+  public static ImageSource of(final File file) {
+    return new ImageSource("file:" + file.getPath(), false) {
+      @Override
+      public InputStream open() throws IOException {
+        return new FileInputStream(file);
+      }
+    };
+  }
+
+  private final String key;
+  private final boolean resource;
+
+  protected ImageSource(String key, boolean resource) {
+    this.key = key;
+    this.resource = resource;
+  }
+
+  public abstract InputStream open() throws IOException;
+
+  /**
+   * @return the same for every source of the same picture
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return whether the picture is shipped with the app, small and never changing
+   */
+  public boolean isResource() {
+    return resource;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ImageSource && key.equals(((ImageSource) o).key);
+  }
+
+  @Override
+  public int hashCode() {
+    return key.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return key;
+  }
+}
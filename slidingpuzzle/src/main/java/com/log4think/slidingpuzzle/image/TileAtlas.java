@@ -0,0 +1,66 @@
+package com.log4think.slidingpuzzle.image;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+/**
+ * One decoded picture cut into square tiles by source rectangles only, the pixels are never
+ * copied. Another board size is another atlas of the same picture.
+ *
+ * Atlases are immutable, so the {@link ImageCache} can hand the same one to every board.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class TileAtlas {
+  private final Bitmap bitmap;
+  private final int colCount, rowCount;
+  private final int sliceWidth, sliceHeight;
+
+  public TileAtlas(Bitmap bitmap, int colCount, int rowCount) {
+    if (colCount <= 0 || rowCount <= 0) {
+      throw new IllegalArgumentException("invalid board size " + colCount + "x" + rowCount);
+    }
+
+    this.bitmap = bitmap;
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+
+    // slice as square
+    sliceWidth = Math.min(bitmap.getWidth() / colCount, bitmap.getHeight() / rowCount);
+    sliceHeight = sliceWidth;
+  }
+
+  public Bitmap getBitmap() {
+    return bitmap;
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getTileCount() {
+    return colCount * rowCount;
+  }
+
+  public int getSliceWidth() {
+    return sliceWidth;
+  }
+
+  public int getSliceHeight() {
+    return sliceHeight;
+  }
+
+  /**
+   * @param tile numbered by its place in the solved board
+   * @param out receives the part of {@link #getBitmap()} that shows the tile
+   */
+  public void getSourceRect(int tile, Rect out) {
+    int x = tile % colCount * sliceWidth;
+    int y = tile / colCount * sliceHeight;
+    out.set(x, y, x + sliceWidth, y + sliceHeight);
+  }
+}
@@ -0,0 +1,62 @@
+package com.log4think.slidingpuzzle.image;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * one tile of a {@link TileAtlas}, drawn straight from the shared bitmap
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class TileDrawable extends Drawable {
+  private final TileAtlas atlas;
+  private final int tile;
+  private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final Rect src = new Rect();
+
+  public TileDrawable(TileAtlas atlas, int tile) {
+    this.atlas = atlas;
+    this.tile = tile;
+  }
+
+  public int getTile() {
+    return tile;
+  }
+
+  @Override
+  public void draw(Canvas canvas) {
+    atlas.getSourceRect(tile, src);
+    canvas.drawBitmap(atlas.getBitmap(), src, getBounds(), paint);
+  }
+
+  @Override
+  public int getIntrinsicWidth() {
+    return atlas.getSliceWidth();
+  }
+
+  @Override
+  public int getIntrinsicHeight() {
+    return atlas.getSliceHeight();
+  }
+
+  @Override
+  public void setAlpha(int alpha) {
+    paint.setAlpha(alpha);
+    invalidateSelf();
+  }
+
+  @Override
+  public void setColorFilter(ColorFilter colorFilter) {
+    paint.setColorFilter(colorFilter);
+    invalidateSelf();
+  }
+
+  @Override
+  public int getOpacity() {
+    return PixelFormat.TRANSLUCENT;
+  }
+}
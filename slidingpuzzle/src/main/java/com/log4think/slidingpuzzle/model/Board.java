@@ -0,0 +1,249 @@
+package com.log4think.slidingpuzzle.model;
+
+/**
+ * A headless model of the puzzle board, independent of the Android views.
+ *
+ * Tiles are numbered by their position on the solved board, the last tile is the empty cell.
+ * Both directions of the mapping are kept so that any lookup is O(1):
+ * tiles[position] is the tile at a position, positions[tile] is the position of a tile.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class Board {
+  private final int colCount, rowCount;
+  private final int[] tiles;
+  private final int[] positions;
+  private int emptyPosition;
+
+  public Board(int colCount, int rowCount) {
+    if (colCount <= 0 || rowCount <= 0) {
+      throw new IllegalArgumentException("invalid board size " + colCount + "x" + rowCount);
+    }
+
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.tiles = new int[colCount * rowCount];
+    this.positions = new int[colCount * rowCount];
+    reset();
+  }
+
+  public Board(Board board) {
+    this.colCount = board.colCount;
+    this.rowCount = board.rowCount;
+    this.tiles = board.tiles.clone();
+    this.positions = board.positions.clone();
+    this.emptyPosition = board.emptyPosition;
+  }
+
+  /**
+   * put all tiles back to the solved order
+   */
+  public void reset() {
+    for (int i = 0; i < tiles.length; i++) {
+      tiles[i] = i;
+      positions[i] = i;
+    }
+    emptyPosition = tiles.length - 1;
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getSize() {
+    return tiles.length;
+  }
+
+  public int getEmptyTile() {
+    return tiles.length - 1;
+  }
+
+  public int getEmptyPosition() {
+    return emptyPosition;
+  }
+
+  public int getEmptyCol() {
+    return emptyPosition % colCount;
+  }
+
+  public int getEmptyRow() {
+    return emptyPosition / colCount;
+  }
+
+  /**
+   * @return the tile at the given coordinate, or -1 if it is out of the board
+   */
+  public int getTile(int col, int row) {
+    if (col < 0 || col > colCount - 1 || row < 0 || row > rowCount - 1) {
+      return -1;
+    }
+    return tiles[row * colCount + col];
+  }
+
+  public int getTileAt(int position) {
+    return tiles[position];
+  }
+
+  public int getPosition(int tile) {
+    return positions[tile];
+  }
+
+  public int getCol(int tile) {
+    return positions[tile] % colCount;
+  }
+
+  public int getRow(int tile) {
+    return positions[tile] / colCount;
+  }
+
+  /**
+   * copy the position to tile mapping into dest, which must hold at least {@link #getSize()}
+   * elements
+   */
+  public void copyTiles(int[] dest) {
+    System.arraycopy(tiles, 0, dest, 0, tiles.length);
+  }
+
+  /**
+   * @return whether the board has exactly the given position to tile mapping
+   */
+  public boolean hasTiles(int[] tiles) {
+    if (tiles.length != this.tiles.length) {
+      return false;
+    }
+    for (int i = 0; i < tiles.length; i++) {
+      if (tiles[i] != this.tiles[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * replace the whole arrangement at once
+   *
+   * @param tiles position to tile mapping, must be a permutation of [0, size)
+   */
+  public void setTiles(int[] tiles) {
+    if (tiles.length != this.tiles.length) {
+      throw new IllegalArgumentException("expect " + this.tiles.length + " tiles, got " + tiles.length);
+    }
+
+    boolean[] seen = new boolean[tiles.length];
+    for (int tile : tiles) {
+      if (tile < 0 || tile >= tiles.length || seen[tile]) {
+        throw new IllegalArgumentException("tiles is not a permutation");
+      }
+      seen[tile] = true;
+    }
+
+    for (int i = 0; i < tiles.length; i++) {
+      this.tiles[i] = tiles[i];
+      this.positions[tiles[i]] = i;
+    }
+    emptyPosition = positions[getEmptyTile()];
+  }
+
+  /**
+   * @param move one of the {@link Move} directions
+   * @return whether the empty cell can move to the given direction
+   */
+  public boolean canMove(int move) {
+    int col = getEmptyCol() + Move.dx(move);
+    int row = getEmptyRow() + Move.dy(move);
+    return col >= 0 && col < colCount && row >= 0 && row < rowCount;
+  }
+
+  /**
+   * move the empty cell to the given direction, the tile there takes the old empty position
+   *
+   * @param move one of the {@link Move} directions
+   * @return the tile that has been moved, or -1 if the empty cell is at the border
+   */
+  public int move(int move) {
+    if (!canMove(move)) {
+      return -1;
+    }
+
+    int target = emptyPosition + Move.dy(move) * colCount + Move.dx(move);
+    int tile = tiles[target];
+
+    tiles[emptyPosition] = tile;
+    positions[tile] = emptyPosition;
+    tiles[target] = getEmptyTile();
+    positions[getEmptyTile()] = target;
+    emptyPosition = target;
+    return tile;
+  }
+
+  public boolean isSolvable() {
+    return isSolvable(tiles, colCount);
+  }
+
+  /**
+   * every move swaps the empty tile with another one, so a board can only be solved if the
+   * parity of its permutation equals the parity of the empty cell's distance to its goal. That is
+   * all it takes once the board is at least 2x2. On a single row or column the tiles can't pass
+   * each other, so the other tiles have to be in order already.
+   *
+   * @param tiles position to tile mapping, the last tile is the empty cell
+   */
+  public static boolean isSolvable(int[] tiles, int colCount) {
+    int size = tiles.length;
+    if (colCount == 1 || colCount == size) {
+      return isInOrder(tiles);
+    }
+
+    int empty = 0;
+    int transpositions = 0;
+    boolean[] visited = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      if (tiles[i] == size - 1) {
+        empty = i;
+      }
+      if (!visited[i]) {
+        // a cycle of length n is n - 1 transpositions
+        for (int j = i; !visited[j]; j = tiles[j]) {
+          visited[j] = true;
+          transpositions++;
+        }
+        transpositions--;
+      }
+    }
+
+    int goal = size - 1;
+    int distance = Math.abs(empty % colCount - goal % colCount) + Math.abs(empty / colCount - goal / colCount);
+    return (transpositions & 1) == (distance & 1);
+  }
+
+  /**
+   * @return whether the tiles other than the empty one are in ascending order
+   */
+  private static boolean isInOrder(int[] tiles) {
+    int empty = tiles.length - 1;
+    int last = -1;
+    for (int tile : tiles) {
+      if (tile == empty) {
+        continue;
+      }
+      if (tile < last) {
+        return false;
+      }
+      last = tile;
+    }
+    return true;
+  }
+
+  public boolean isSolved() {
+    for (int i = 0; i < tiles.length; i++) {
+      if (tiles[i] != i) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
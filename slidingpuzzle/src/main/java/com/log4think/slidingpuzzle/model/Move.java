@@ -0,0 +1,53 @@
+package com.log4think.slidingpuzzle.model;
+
+/**
+ * primitive encoding of a move of the empty cell
+ * the four directions are laid out so that the inverse of a move is {@code move ^ 1}
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public final class Move {
+  public static final int NONE = -1;
+  public static final int UP = 0;
+  public static final int DOWN = 1;
+  public static final int LEFT = 2;
+  public static final int RIGHT = 3;
+
+  private static final int[] DX = {0, 0, -1, 1};
+  private static final int[] DY = {-1, 1, 0, 0};
+
+  private Move() {
+    // empty
+  }
+
+  public static int inverse(int move) {
+    return move ^ 1;
+  }
+
+  public static int dx(int move) {
+    return DX[move];
+  }
+
+  public static int dy(int move) {
+    return DY[move];
+  }
+
+  /**
+   * @param dx -1 left, +1 right
+   * @param dy -1 top, +1 bottom
+   * @return the move of the given direction, or {@link #NONE} if it isn't an unit move
+   */
+  public static int of(int dx, int dy) {
+    if (dx == 0 && dy < 0) {
+      return UP;
+    } else if (dx == 0 && dy > 0) {
+      return DOWN;
+    } else if (dx < 0 && dy == 0) {
+      return LEFT;
+    } else if (dx > 0 && dy == 0) {
+      return RIGHT;
+    } else {
+      return NONE;
+    }
+  }
+}
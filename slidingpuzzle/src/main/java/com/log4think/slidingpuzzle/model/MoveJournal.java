@@ -0,0 +1,108 @@
+package com.log4think.slidingpuzzle.model;
+
+/**
+ * History of the moves of a board, 2 bits per {@link Move} packed into longs, 32 moves a word.
+ *
+ * The moves before the cursor lead from the start to the current board, the ones after it can be
+ * redone. Adding the inverse of the last move is the same as undoing it and adding the move that
+ * would be redone is the same as redoing it, so moving a tile back and forth leaves no trace.
+ * Any other move drops the redo part.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class MoveJournal {
+  private static final int MOVES_PER_WORD = 32;
+
+  private long[] words;
+  private int size;
+  private int cursor;
+
+  public MoveJournal() {
+    this(MOVES_PER_WORD * 8);
+  }
+
+  public MoveJournal(int capacity) {
+    words = new long[Math.max((capacity + MOVES_PER_WORD - 1) / MOVES_PER_WORD, 1)];
+  }
+
+  public void add(int move) {
+    if (move < Move.UP || move > Move.RIGHT) {
+      throw new IllegalArgumentException("invalid move " + move);
+    }
+
+    if (cursor > 0 && get(cursor - 1) == Move.inverse(move)) {
+      cursor--;
+    } else if (cursor < size && get(cursor) == move) {
+      cursor++;
+    } else {
+      size = cursor;
+      if (size == words.length * MOVES_PER_WORD) {
+        long[] grown = new long[words.length * 2];
+        System.arraycopy(words, 0, grown, 0, words.length);
+        words = grown;
+      }
+      set(size++, move);
+      cursor = size;
+    }
+  }
+
+  /**
+   * step the cursor back
+   *
+   * @return the move that takes the board back, or {@link Move#NONE} if there is nothing to undo
+   */
+  public int undo() {
+    if (cursor == 0) {
+      return Move.NONE;
+    }
+    return Move.inverse(get(--cursor));
+  }
+
+  /**
+   * step the cursor forward
+   *
+   * @return the move to make again, or {@link Move#NONE} if there is nothing to redo
+   */
+  public int redo() {
+    if (cursor == size) {
+      return Move.NONE;
+    }
+    return get(cursor++);
+  }
+
+  public int get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+    }
+    return (int) (words[index / MOVES_PER_WORD] >>> ((index % MOVES_PER_WORD) << 1)) & 3;
+  }
+
+  /**
+   * @return the move right before the cursor, or {@link Move#NONE}
+   */
+  public int getLast() {
+    return cursor == 0 ? Move.NONE : get(cursor - 1);
+  }
+
+  /**
+   * @return the number of moves from the start to the current board
+   */
+  public int length() {
+    return cursor;
+  }
+
+  public int getRedoCount() {
+    return size - cursor;
+  }
+
+  public void clear() {
+    size = 0;
+    cursor = 0;
+  }
+
+  private void set(int index, int move) {
+    int shift = (index % MOVES_PER_WORD) << 1;
+    int word = index / MOVES_PER_WORD;
+    words[word] = words[word] & ~(3L << shift) | ((long) move << shift);
+  }
+}
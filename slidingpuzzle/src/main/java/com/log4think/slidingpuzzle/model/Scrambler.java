@@ -0,0 +1,152 @@
+package com.log4think.slidingpuzzle.model;
+
+import java.util.Random;
+
+import com.log4think.slidingpuzzle.utils.XoshiroRandom;
+
+/**
+ * Draws boards uniformly from all solvable ones.
+ *
+ * A Fisher-Yates shuffle gives every permutation, the empty cell included, the same chance. Half
+ * of them can't be solved; swapping the same two tiles in each of those maps them one to one onto
+ * the solvable half, so the result stays uniform.
+ *
+ * A seed always gives the same board, on every device, so a board can be passed around as its
+ * seed, or as its tiles packed by {@link #encode(int[])}.
+ *
+ * On a single row or column the tiles can't pass each other, so only the empty cell is placed
+ * there, at random.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public final class Scrambler {
+  private static final ThreadLocal<XoshiroRandom> SEEDED = new ThreadLocal<XoshiroRandom>() {
+    @Override
+    protected XoshiroRandom initialValue() {
+      return new XoshiroRandom(0);
+    }
+  };
+
+  private Scrambler() {
+    // empty
+  }
+
+  public static int[] scramble(int colCount, int rowCount, long seed) {
+    int[] tiles = new int[colCount * rowCount];
+    scramble(tiles, colCount, seed);
+    return tiles;
+  }
+
+  /**
+   * allocation free, for generating many boards
+   */
+  public static void scramble(int[] tiles, int colCount, long seed) {
+    XoshiroRandom random = SEEDED.get();
+    random.setSeed(seed);
+    scramble(tiles, colCount, random);
+  }
+
+  public static int[] scramble(int colCount, int rowCount, Random random) {
+    int[] tiles = new int[colCount * rowCount];
+    scramble(tiles, colCount, random);
+    return tiles;
+  }
+
+  /**
+   * @param tiles receives the position to tile mapping of the scrambled board
+   */
+  public static void scramble(int[] tiles, int colCount, Random random) {
+    int size = tiles.length;
+    if (colCount == 1 || colCount == size) {
+      // the empty cell goes to a random position, the others keep their order around it
+      int empty = random.nextInt(size);
+      for (int i = 0; i < size; i++) {
+        tiles[i] = i < empty ? i : (i == empty ? size - 1 : i - 1);
+      }
+      return;
+    }
+
+    for (int i = 0; i < size; i++) {
+      tiles[i] = i;
+    }
+    for (int i = size - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tile = tiles[i];
+      tiles[i] = tiles[j];
+      tiles[j] = tile;
+    }
+
+    if (size > 2 && !Board.isSolvable(tiles, colCount)) {
+      // the first two positions that don't hold the empty cell
+      int first = tiles[0] == size - 1 ? 1 : 0;
+      int second = tiles[first + 1] == size - 1 ? first + 2 : first + 1;
+      int tile = tiles[first];
+      tiles[first] = tiles[second];
+      tiles[second] = tile;
+    }
+  }
+
+  /**
+   * pack the tiles with as many bits as the largest one needs, the last tile is left out since it
+   * is the one missing from the others. A 4x4 board takes 8 bytes.
+   */
+  public static byte[] encode(int[] tiles) {
+    int bits = getBitsPerTile(tiles.length);
+    byte[] code = new byte[((tiles.length - 1) * bits + 7) / 8];
+
+    long buffer = 0;
+    int buffered = 0, index = 0;
+    for (int i = 0; i < tiles.length - 1; i++) {
+      buffer |= (long) tiles[i] << buffered;
+      buffered += bits;
+      while (buffered >= 8) {
+        code[index++] = (byte) buffer;
+        buffer >>>= 8;
+        buffered -= 8;
+      }
+    }
+    if (buffered > 0) {
+      code[index] = (byte) buffer;
+    }
+    return code;
+  }
+
+  /**
+   * @param tiles receives the tiles, its length is the size of the encoded board
+   * @throws IllegalArgumentException if the code doesn't hold a board of that size
+   */
+  public static void decode(byte[] code, int[] tiles) {
+    int size = tiles.length;
+    int bits = getBitsPerTile(size);
+    if (code.length != ((size - 1) * bits + 7) / 8) {
+      throw new IllegalArgumentException("code of " + code.length + " bytes isn't a board of " + size + " tiles");
+    }
+
+    long buffer = 0;
+    int buffered = 0, index = 0;
+    long missing = (long) size * (size - 1) / 2;
+    for (int i = 0; i < size - 1; i++) {
+      while (buffered < bits) {
+        buffer |= (long) (code[index++] & 0xFF) << buffered;
+        buffered += 8;
+      }
+      tiles[i] = (int) (buffer & ((1 << bits) - 1));
+      buffer >>>= bits;
+      buffered -= bits;
+      missing -= tiles[i];
+    }
+    tiles[size - 1] = (int) missing;
+
+    boolean[] seen = new boolean[size];
+    for (int tile : tiles) {
+      if (tile < 0 || tile >= size || seen[tile]) {
+        throw new IllegalArgumentException("code isn't a permutation");
+      }
+      seen[tile] = true;
+    }
+  }
+
+  private static int getBitsPerTile(int size) {
+    return Math.max(32 - Integer.numberOfLeadingZeros(size - 1), 1);
+  }
+}
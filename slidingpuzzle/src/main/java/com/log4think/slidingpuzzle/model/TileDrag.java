@@ -0,0 +1,142 @@
+package com.log4think.slidingpuzzle.model;
+
+/**
+ * Headless state of a finger dragging a line of tiles towards the empty cell, so the view only
+ * places its cells by {@link #getOffsetX()} and {@link #getOffsetY()}.
+ *
+ * The tiles from the touched one up to the empty cell are captured when the drag starts. Every
+ * pointer move shifts them along the axis of the empty cell, as far as one cell and never
+ * backwards; a move that would leave that range is dropped as a whole. The tile buffer is sized
+ * once per board, so a drag allocates nothing.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class TileDrag {
+  // a drag shorter than that is a tap
+  public static final int TAP_SLOP = 5;
+
+  private int[] tiles = new int[0];
+  private int count;
+  private int move = Move.NONE;
+  private int cellWidth, cellHeight;
+  private float offset;
+  private float lastX, lastY;
+  private boolean anchored;
+
+  /**
+   * @param colCount size the tile buffer for lines of the board
+   */
+  public void setBoardSize(int colCount, int rowCount) {
+    tiles = new int[Math.max(colCount, rowCount)];
+    count = 0;
+    move = Move.NONE;
+  }
+
+  public void setCellSize(int cellWidth, int cellHeight) {
+    this.cellWidth = cellWidth;
+    this.cellHeight = cellHeight;
+  }
+
+  /**
+   * capture the tiles between the tile and the empty cell, the touched tile first
+   *
+   * @return false if the tile isn't in the row or column of the empty cell
+   */
+  public boolean start(Board board, int tile) {
+    release();
+
+    int col = board.getCol(tile), row = board.getRow(tile);
+    int emptyCol = board.getEmptyCol(), emptyRow = board.getEmptyRow();
+    if ((col != emptyCol && row != emptyRow) || tile == board.getEmptyTile()) {
+      return false;
+    }
+
+    move = Move.of(emptyCol - col, emptyRow - row);
+    int dx = Move.dx(move), dy = Move.dy(move);
+    for (; col != emptyCol || row != emptyRow; col += dx, row += dy) {
+      tiles[count++] = board.getTile(col, row);
+    }
+    return true;
+  }
+
+  /**
+   * drop the captured tiles and the pointer
+   */
+  public void release() {
+    count = 0;
+    move = Move.NONE;
+    offset = 0;
+    anchored = false;
+  }
+
+  /**
+   * take the pointer position the next {@link #drag(float, float)} is relative to
+   */
+  public void anchor(float x, float y) {
+    lastX = x;
+    lastY = y;
+    anchored = true;
+  }
+
+  /**
+   * forget the pointer position, the next drag only anchors
+   */
+  public void unanchor() {
+    anchored = false;
+  }
+
+  /**
+   * follow the pointer to the position
+   *
+   * @return whether the tiles have moved
+   */
+  public boolean drag(float x, float y) {
+    boolean moved = false;
+    if (anchored && count > 0) {
+      float delta = Move.dx(move) != 0 ? x - lastX : y - lastY;
+      float limit = Move.dx(move) * cellWidth + Move.dy(move) * cellHeight;
+      float next = offset + delta;
+      if (next < Math.max(0, limit) && next > Math.min(0, limit)) {
+        offset = next;
+        moved = true;
+      }
+    }
+    anchor(x, y);
+    return moved;
+  }
+
+  /**
+   * @return whether letting go should slide the tiles in, since they have been dragged half way
+   * or only tapped
+   */
+  public boolean isCommitted() {
+    int distance = (int) Math.abs(offset);
+    return distance > cellWidth / 2 || distance > cellHeight / 2 || distance < TAP_SLOP;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @param index 0 for the touched tile, up to the one next to the empty cell
+   */
+  public int getTile(int index) {
+    return tiles[index];
+  }
+
+  /**
+   * @return the {@link Move} the captured tiles make, the empty cell makes the inverse one
+   */
+  public int getMove() {
+    return move;
+  }
+
+  public float getOffsetX() {
+    return move == Move.NONE ? 0 : Move.dx(move) * Math.abs(offset);
+  }
+
+  public float getOffsetY() {
+    return move == Move.NONE ? 0 : Move.dy(move) * Math.abs(offset);
+  }
+}
@@ -0,0 +1,223 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.log4think.slidingpuzzle.model.Move;
+
+/**
+ * Exact distance of every reachable state of a small board, e.g. 181,440 states of 3x3 or
+ * 20,160 of 2x4, found by a breadth first search from the solved board.
+ *
+ * The table is one byte per full permutation rank, {@link #UNREACHABLE} for the half of the
+ * permutations that have the wrong parity. An optimal solution is found by walking downhill, which
+ * costs a few rank computations per move instead of a search.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ExactDistanceTable implements Solver {
+  public static final int MAX_SIZE = 10;
+  public static final int UNREACHABLE = 0xFF;
+
+  private static final int MAGIC = 0x53504558; // "SPEX"
+  private static final int VERSION = 1;
+
+  private final int colCount, rowCount;
+  private final PermutationRank ranking;
+  private final int[] neighbors;
+  private final byte[] distances;
+
+  private ExactDistanceTable(int colCount, int rowCount, byte[] distances) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.ranking = new PermutationRank(colCount * rowCount, colCount * rowCount);
+    this.neighbors = IdaStarSolver.createNeighbors(colCount, rowCount);
+    this.distances = distances;
+  }
+
+  public static boolean isSupported(int colCount, int rowCount) {
+    return colCount * rowCount <= MAX_SIZE;
+  }
+
+  public static String getAssetName(int colCount, int rowCount) {
+    return "exact_" + colCount + "x" + rowCount + ".bin";
+  }
+
+  public static ExactDistanceTable build(int colCount, int rowCount) {
+    int size = colCount * rowCount;
+    if (size > MAX_SIZE) {
+      throw new IllegalArgumentException("board " + colCount + "x" + rowCount + " is too large");
+    }
+
+    ExactDistanceTable table = new ExactDistanceTable(colCount, rowCount,
+        new byte[(int) new PermutationRank(size, size).getCount()]);
+    table.search();
+    return table;
+  }
+
+  private void search() {
+    int size = colCount * rowCount;
+    int[] tiles = new int[size];
+    Arrays.fill(distances, (byte) UNREACHABLE);
+
+    // only the states of the right parity are reachable
+    int[] queue = new int[distances.length / 2 + 1];
+    int head = 0, tail = 0;
+
+    for (int i = 0; i < size; i++) {
+      tiles[i] = i;
+    }
+    int goal = (int) ranking.rank(tiles);
+    distances[goal] = 0;
+    queue[tail++] = goal;
+
+    while (head < tail) {
+      int rank = queue[head++];
+      int distance = distances[rank] & 0xFF;
+      ranking.unrank(rank, tiles);
+
+      int empty = indexOf(tiles, size - 1);
+      for (int move = Move.UP; move <= Move.RIGHT; move++) {
+        int target = neighbors[empty * 4 + move];
+        if (target < 0) {
+          continue;
+        }
+
+        swap(tiles, empty, target);
+        int next = (int) ranking.rank(tiles);
+        if ((distances[next] & 0xFF) == UNREACHABLE) {
+          distances[next] = (byte) (distance + 1);
+          queue[tail++] = next;
+        }
+        swap(tiles, empty, target);
+      }
+    }
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return the optimal number of moves, or {@link #UNREACHABLE}
+   */
+  public int getDistance(int[] tiles) {
+    return distances[(int) ranking.rank(tiles)] & 0xFF;
+  }
+
+  /**
+   * @return the first move of an optimal solution, or {@link Move#NONE} if the board is solved
+   * or can't be solved
+   */
+  public int getNextMove(int[] tiles) {
+    int distance = getDistance(tiles);
+    if (distance == 0 || distance == UNREACHABLE) {
+      return Move.NONE;
+    }
+
+    int empty = indexOf(tiles, tiles.length - 1);
+    for (int move = Move.UP; move <= Move.RIGHT; move++) {
+      int target = neighbors[empty * 4 + move];
+      if (target < 0) {
+        continue;
+      }
+
+      swap(tiles, empty, target);
+      boolean downhill = getDistance(tiles) == distance - 1;
+      swap(tiles, empty, target);
+      if (downhill) {
+        return move;
+      }
+    }
+    return Move.NONE;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the board can't be solved
+   */
+  @Override
+  public int[] solve(int[] initial) {
+    if (initial.length != colCount * rowCount) {
+      throw new IllegalArgumentException("expect " + colCount * rowCount + " tiles, got " + initial.length);
+    }
+
+    int[] tiles = initial.clone();
+    int distance = getDistance(tiles);
+    if (distance == UNREACHABLE) {
+      throw new IllegalArgumentException("board is not solvable");
+    }
+
+    int[] solution = new int[distance];
+    for (int i = 0; i < distance; i++) {
+      int move = getNextMove(tiles);
+      int empty = indexOf(tiles, tiles.length - 1);
+      swap(tiles, empty, neighbors[empty * 4 + move]);
+      solution[i] = move;
+    }
+    return solution;
+  }
+
+  @Override
+  public void cancel() {
+    // a lookup is never long enough to be worth cancelling
+  }
+
+  @Override
+  public void clearCancel() {
+    // nothing to clear
+  }
+
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(colCount);
+    data.writeInt(rowCount);
+    data.write(distances);
+    data.flush();
+  }
+
+  public static ExactDistanceTable read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("not an exact distance table");
+    }
+    int version = data.readInt();
+    if (version != VERSION) {
+      throw new IOException("unsupported exact distance table version " + version);
+    }
+
+    int colCount = data.readInt();
+    int rowCount = data.readInt();
+    if (colCount <= 0 || rowCount <= 0 || colCount * rowCount > MAX_SIZE) {
+      throw new IOException("corrupted exact distance table header");
+    }
+
+    byte[] distances = new byte[(int) new PermutationRank(colCount * rowCount, colCount * rowCount).getCount()];
+    data.readFully(distances);
+    return new ExactDistanceTable(colCount, rowCount, distances);
+  }
+
+  private static int indexOf(int[] values, int value) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static void swap(int[] values, int a, int b) {
+    int value = values[a];
+    values[a] = values[b];
+    values[b] = value;
+  }
+}
@@ -0,0 +1,30 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * An admissible estimate of the number of moves left, maintained incrementally during search.
+ *
+ * Implementations keep their own state between calls and must not allocate in
+ * {@link #update(int[], int, int, int)}. The estimate must be 0 only for the solved board.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public interface Heuristic {
+  /**
+   * @param tiles position to tile mapping
+   * @return the estimate of the whole board
+   */
+  int reset(int[] tiles);
+
+  /**
+   * called after tile has been moved from one position to another in tiles, calling it again
+   * with from and to swapped restores the previous state
+   *
+   * @return the new estimate
+   */
+  int update(int[] tiles, int tile, int from, int to);
+
+  /**
+   * @return a fresh instance for another thread, immutable tables may be shared
+   */
+  Heuristic copy();
+}
@@ -0,0 +1,242 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+
+/**
+ * Iterative deepening A*, returns an optimal solution for an admissible heuristic.
+ *
+ * All buffers are allocated up front, the depth first search itself only touches primitive
+ * arrays and never allocates.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class IdaStarSolver implements Solver {
+  static final int FOUND = -1;
+  // apart from Integer.MAX_VALUE, which is a subtree that only ran into dead ends
+  static final int CANCELLED = -2;
+  private static final int CANCEL_CHECK_MASK = 0xFFFF;
+
+  private final int colCount, rowCount;
+  private final int emptyTile;
+  private final Heuristic heuristic;
+  private final int[] neighbors;
+  private final int[] tiles;
+  private final AtomicBoolean stopped;
+
+  private int[] path;
+  private int emptyPosition;
+  private int estimate;
+  private int solutionLength;
+  private long nodeCount;
+  private volatile boolean cancelled;
+
+  public IdaStarSolver(int colCount, int rowCount) {
+    this(colCount, rowCount, new ManhattanHeuristic(colCount, rowCount));
+  }
+
+  public IdaStarSolver(int colCount, int rowCount, Heuristic heuristic) {
+    this(colCount, rowCount, heuristic, null);
+  }
+
+  /**
+   * @param stopped shared by the workers of {@code ParallelIdaStarSolver} of the tools, aborts every search
+   * once set
+   */
+  IdaStarSolver(int colCount, int rowCount, Heuristic heuristic, AtomicBoolean stopped) {
+    this.stopped = stopped;
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.emptyTile = colCount * rowCount - 1;
+    this.heuristic = heuristic;
+    this.neighbors = createNeighbors(colCount, rowCount);
+    this.tiles = new int[colCount * rowCount];
+    this.path = new int[64];
+  }
+
+  /**
+   * @return neighbors[position * 4 + move] is the position the empty cell reaches by the move,
+   * or -1 if the move leaves the board
+   */
+  public static int[] createNeighbors(int colCount, int rowCount) {
+    int[] neighbors = new int[colCount * rowCount * 4];
+    for (int position = 0; position < colCount * rowCount; position++) {
+      for (int move = Move.UP; move <= Move.RIGHT; move++) {
+        int col = position % colCount + Move.dx(move);
+        int row = position / colCount + Move.dy(move);
+        boolean inside = col >= 0 && col < colCount && row >= 0 && row < rowCount;
+        neighbors[position * 4 + move] = inside ? row * colCount + col : -1;
+      }
+    }
+    return neighbors;
+  }
+
+  public int[] solve(Board board) {
+    int[] tiles = new int[board.getSize()];
+    board.copyTiles(tiles);
+    return solve(tiles);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the board can't be solved
+   */
+  @Override
+  public synchronized int[] solve(int[] initial) {
+    if (initial.length != tiles.length) {
+      throw new IllegalArgumentException("expect " + tiles.length + " tiles, got " + initial.length);
+    }
+    if (!Board.isSolvable(initial, colCount)) {
+      throw new IllegalArgumentException("board is not solvable");
+    }
+
+    System.arraycopy(initial, 0, tiles, 0, tiles.length);
+    for (int i = 0; i < tiles.length; i++) {
+      if (tiles[i] == emptyTile) {
+        emptyPosition = i;
+      }
+    }
+
+    nodeCount = 0;
+    estimate = heuristic.reset(tiles);
+
+    int bound = estimate;
+    while (true) {
+      // the search only looks every few thousand nodes, a cancel that came first stops it here
+      if (isStopped()) {
+        return null;
+      }
+      ensurePathCapacity(bound);
+
+      int result = search(0, bound, Move.NONE);
+      if (result == FOUND) {
+        return getSolution();
+      } else if (result == CANCELLED) {
+        return null;
+      } else if (result == Integer.MAX_VALUE) {
+        throw new IllegalStateException("search ran out of moves");
+      }
+      bound = result;
+    }
+  }
+
+  /**
+   * one subtree of an iteration of {@code ParallelIdaStarSolver} of the tools
+   *
+   * @param prefix the moves from initial to the root of the subtree
+   * @return {@link #FOUND}, {@link #CANCELLED}, or the smallest f value that exceeded the bound
+   */
+  int searchSubtree(int[] initial, int[] prefix, int bound) {
+    System.arraycopy(initial, 0, tiles, 0, tiles.length);
+    for (int i = 0; i < tiles.length; i++) {
+      if (tiles[i] == emptyTile) {
+        emptyPosition = i;
+      }
+    }
+
+    ensurePathCapacity(Math.max(bound, prefix.length));
+    for (int i = 0; i < prefix.length; i++) {
+      int target = neighbors[emptyPosition * 4 + prefix[i]];
+      tiles[emptyPosition] = tiles[target];
+      tiles[target] = emptyTile;
+      emptyPosition = target;
+      path[i] = prefix[i];
+    }
+
+    estimate = heuristic.reset(tiles);
+    return search(prefix.length, bound, prefix.length > 0 ? prefix[prefix.length - 1] : Move.NONE);
+  }
+
+  int[] getSolution() {
+    int[] solution = new int[solutionLength];
+    System.arraycopy(path, 0, solution, 0, solutionLength);
+    return solution;
+  }
+
+  private void ensurePathCapacity(int bound) {
+    if (path.length <= bound) {
+      path = new int[bound * 2];
+    }
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+  }
+
+  @Override
+  public void clearCancel() {
+    cancelled = false;
+  }
+
+  public long getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  private boolean isStopped() {
+    return cancelled || (stopped != null && stopped.get());
+  }
+
+  /**
+   * @return FOUND, CANCELLED, or the smallest f value that exceeded the bound
+   */
+  private int search(int depth, int bound, int lastMove) {
+    int f = depth + estimate;
+    if (f > bound) {
+      return f;
+    }
+    if (estimate == 0) {
+      solutionLength = depth;
+      return FOUND;
+    }
+    if ((++nodeCount & CANCEL_CHECK_MASK) == 0 && isStopped()) {
+      return CANCELLED;
+    }
+
+    int min = Integer.MAX_VALUE;
+    for (int move = Move.UP; move <= Move.RIGHT; move++) {
+      if (lastMove != Move.NONE && move == Move.inverse(lastMove)) {
+        continue;
+      }
+
+      int target = neighbors[emptyPosition * 4 + move];
+      if (target < 0) {
+        continue;
+      }
+
+      // slide the tile into the empty cell
+      int from = emptyPosition;
+      int tile = tiles[target];
+      tiles[from] = tile;
+      tiles[target] = emptyTile;
+      emptyPosition = target;
+      int previous = estimate;
+      estimate = heuristic.update(tiles, tile, target, from);
+      path[depth] = move;
+
+      int result = search(depth + 1, bound, move);
+
+      // undo the move
+      tiles[target] = tile;
+      tiles[from] = emptyTile;
+      emptyPosition = from;
+      heuristic.update(tiles, tile, from, target);
+      estimate = previous;
+
+      if (result == FOUND || result == CANCELLED) {
+        return result;
+      }
+      min = Math.min(min, result);
+    }
+    return min;
+  }
+}
@@ -0,0 +1,71 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Arrays;
+
+/**
+ * a fixed size bit set addressed by long, for state spaces beyond the int range of
+ * {@link java.util.BitSet}
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+class LongBitSet {
+  private final long[] words;
+  private final long size;
+
+  LongBitSet(long size) {
+    this.size = size;
+    this.words = new long[(int) ((size + 63) >>> 6)];
+  }
+
+  long size() {
+    return size;
+  }
+
+  boolean get(long index) {
+    return (words[(int) (index >>> 6)] & (1L << index)) != 0;
+  }
+
+  void set(long index) {
+    words[(int) (index >>> 6)] |= 1L << index;
+  }
+
+  void clear() {
+    Arrays.fill(words, 0);
+  }
+
+  /**
+   * @return the index of the first set bit at or after from, or -1 if there is none
+   */
+  long nextSetBit(long from) {
+    if (from >= size) {
+      return -1;
+    }
+
+    int i = (int) (from >>> 6);
+    long word = words[i] & (-1L << from);
+    while (word == 0) {
+      if (++i == words.length) {
+        return -1;
+      }
+      word = words[i];
+    }
+    return ((long) i << 6) + Long.numberOfTrailingZeros(word);
+  }
+
+  boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long cardinality() {
+    long count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+}
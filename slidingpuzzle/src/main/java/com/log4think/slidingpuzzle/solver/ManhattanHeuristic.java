@@ -0,0 +1,132 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * Manhattan distance plus linear conflict.
+ *
+ * Two tiles in their goal row (or column) but in reversed order need at least two extra moves
+ * to pass each other. For every line the conflict is 2 * (tiles in their goal line - longest
+ * run of them already in order), which is recalculated only for the two lines a move touches.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ManhattanHeuristic implements Heuristic {
+  private final int colCount, rowCount;
+  private final int emptyTile;
+  private final int[] distances;
+  private final int[] rowConflicts, colConflicts;
+  private final int[] lineScratch, lisScratch;
+
+  private int manhattan;
+  private int conflicts;
+
+  public ManhattanHeuristic(int colCount, int rowCount) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+
+    int size = colCount * rowCount;
+    this.emptyTile = size - 1;
+    this.distances = new int[size * size];
+    for (int tile = 0; tile < size; tile++) {
+      for (int position = 0; position < size; position++) {
+        distances[tile * size + position] = tile == emptyTile ? 0 :
+            Math.abs(tile % colCount - position % colCount) + Math.abs(tile / colCount - position / colCount);
+      }
+    }
+
+    this.rowConflicts = new int[rowCount];
+    this.colConflicts = new int[colCount];
+    this.lineScratch = new int[Math.max(colCount, rowCount)];
+    this.lisScratch = new int[Math.max(colCount, rowCount)];
+  }
+
+  @Override
+  public int reset(int[] tiles) {
+    int size = tiles.length;
+    manhattan = 0;
+    for (int position = 0; position < size; position++) {
+      manhattan += distances[tiles[position] * size + position];
+    }
+
+    conflicts = 0;
+    for (int row = 0; row < rowCount; row++) {
+      rowConflicts[row] = rowConflict(tiles, row);
+      conflicts += rowConflicts[row];
+    }
+    for (int col = 0; col < colCount; col++) {
+      colConflicts[col] = colConflict(tiles, col);
+      conflicts += colConflicts[col];
+    }
+    return manhattan + conflicts;
+  }
+
+  @Override
+  public int update(int[] tiles, int tile, int from, int to) {
+    int size = tiles.length;
+    manhattan += distances[tile * size + to] - distances[tile * size + from];
+
+    int fromCol = from % colCount, fromRow = from / colCount;
+    int toCol = to % colCount, toRow = to / colCount;
+    if (fromRow == toRow) {
+      // the order inside the row is unchanged, only the two columns are affected
+      conflicts -= colConflicts[fromCol] + colConflicts[toCol];
+      colConflicts[fromCol] = colConflict(tiles, fromCol);
+      colConflicts[toCol] = colConflict(tiles, toCol);
+      conflicts += colConflicts[fromCol] + colConflicts[toCol];
+    } else {
+      conflicts -= rowConflicts[fromRow] + rowConflicts[toRow];
+      rowConflicts[fromRow] = rowConflict(tiles, fromRow);
+      rowConflicts[toRow] = rowConflict(tiles, toRow);
+      conflicts += rowConflicts[fromRow] + rowConflicts[toRow];
+    }
+    return manhattan + conflicts;
+  }
+
+  @Override
+  public Heuristic copy() {
+    return new ManhattanHeuristic(colCount, rowCount);
+  }
+
+  public int getManhattan() {
+    return manhattan;
+  }
+
+  private int rowConflict(int[] tiles, int row) {
+    int count = 0;
+    for (int col = 0; col < colCount; col++) {
+      int tile = tiles[row * colCount + col];
+      if (tile != emptyTile && tile / colCount == row) {
+        lineScratch[count++] = tile % colCount;
+      }
+    }
+    return 2 * (count - longestIncreasing(lineScratch, count));
+  }
+
+  private int colConflict(int[] tiles, int col) {
+    int count = 0;
+    for (int row = 0; row < rowCount; row++) {
+      int tile = tiles[row * colCount + col];
+      if (tile != emptyTile && tile % colCount == col) {
+        lineScratch[count++] = tile / colCount;
+      }
+    }
+    return 2 * (count - longestIncreasing(lineScratch, count));
+  }
+
+  /**
+   * quadratic but lines are at most a few tiles long
+   */
+  private int longestIncreasing(int[] values, int count) {
+    int longest = 0;
+    for (int i = 0; i < count; i++) {
+      int length = 1;
+      for (int j = 0; j < i; j++) {
+        if (values[j] < values[i] && lisScratch[j] + 1 > length) {
+          length = lisScratch[j] + 1;
+        }
+      }
+      lisScratch[i] = length;
+      longest = Math.max(longest, length);
+    }
+    return longest;
+  }
+}
@@ -0,0 +1,51 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * a growable list of {@link com.log4think.slidingpuzzle.model.Move} kept as primitive bytes
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class MoveBuffer {
+  private byte[] moves;
+  private int size;
+
+  public MoveBuffer() {
+    this(64);
+  }
+
+  public MoveBuffer(int capacity) {
+    moves = new byte[Math.max(capacity, 1)];
+  }
+
+  public void add(int move) {
+    if (size == moves.length) {
+      byte[] grown = new byte[moves.length * 2];
+      System.arraycopy(moves, 0, grown, 0, size);
+      moves = grown;
+    }
+    moves[size++] = (byte) move;
+  }
+
+  public int get(int index) {
+    if (index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+    }
+    return moves[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public int[] toArray() {
+    int[] result = new int[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = moves[i];
+    }
+    return result;
+  }
+}
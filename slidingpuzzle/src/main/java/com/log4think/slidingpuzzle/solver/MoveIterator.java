@@ -0,0 +1,19 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * pulls the moves of a solution one by one, the solution may still be computed lazily behind it
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public interface MoveIterator {
+  /**
+   * may do the work needed to find the next move
+   */
+  boolean hasNext();
+
+  /**
+   * @return the next {@link com.log4think.slidingpuzzle.model.Move} of the empty cell
+   * @throws java.util.NoSuchElementException if there are no more moves
+   */
+  int next();
+}
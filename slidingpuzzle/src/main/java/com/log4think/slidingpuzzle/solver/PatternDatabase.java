@@ -0,0 +1,110 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The distance table of one pattern of an additive pattern database.
+ *
+ * A pattern is a subset of the tiles, its abstract state is the placement of those tiles on the
+ * board regardless of all other tiles. The table is indexed by the lexicographic rank of the
+ * placement and only counts moves of the pattern tiles, so the values of disjoint patterns can
+ * be added up.
+ *
+ * As the cost of a placement always has the same parity as the Manhattan distance of its tiles,
+ * the table stores (cost - manhattan) / 2 instead of the cost, packed two entries per byte with
+ * the even rank in the low nibble. The buffer is either on the heap or mapped from a file, see
+ * {@link PatternDatabaseFile}.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternDatabase {
+  private final int colCount, rowCount;
+  private final int[] tiles;
+  private final PermutationRank ranking;
+  private final int entryCount;
+  private final ByteBuffer entries;
+
+  PatternDatabase(int colCount, int rowCount, int[] tiles, ByteBuffer entries) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.tiles = tiles.clone();
+    this.ranking = createRanking(colCount * rowCount, tiles.length);
+    this.entryCount = (int) ranking.getCount();
+    this.entries = entries;
+
+    if (entries.capacity() < getPackedSize(entryCount)) {
+      throw new IllegalArgumentException("expect " + getPackedSize(entryCount) + " bytes of entries, got " + entries.capacity());
+    }
+  }
+
+  /**
+   * @param extras one entry per byte, values above 15 are clamped which keeps them admissible
+   */
+  static ByteBuffer pack(byte[] extras) {
+    byte[] packed = new byte[getPackedSize(extras.length)];
+    for (int rank = 0; rank < extras.length; rank++) {
+      int extra = Math.min(Math.max(extras[rank], 0), 0xF);
+      packed[rank >> 1] |= extra << ((rank & 1) << 2);
+    }
+    return ByteBuffer.wrap(packed);
+  }
+
+  static int getPackedSize(int entryCount) {
+    return (entryCount + 1) / 2;
+  }
+
+  /**
+   * @return the ranking of tileCount tiles on cellCount cells, with ranks in the int range
+   */
+  static PermutationRank createRanking(int cellCount, int tileCount) {
+    PermutationRank ranking = new PermutationRank(cellCount, tileCount);
+    if (ranking.getCount() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("pattern of " + tileCount + " tiles on " + cellCount + " cells is too large");
+    }
+    return ranking;
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int[] getTiles() {
+    return tiles.clone();
+  }
+
+  public int getTileCount() {
+    return tiles.length;
+  }
+
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * @param positions positions[i] is the cell of the i-th pattern tile
+   * @return the lexicographic rank of the placement
+   */
+  public int rank(int[] positions) {
+    return (int) ranking.rank(positions);
+  }
+
+  /**
+   * @return the moves needed on top of the Manhattan distance of the placement, divided by 2
+   */
+  public int getExtra(int rank) {
+    return (entries.get(rank >> 1) >> ((rank & 1) << 2)) & 0xF;
+  }
+
+  /**
+   * @return the packed entries, shares content with the database
+   */
+  ByteBuffer getEntries() {
+    ByteBuffer buffer = entries.duplicate();
+    buffer.clear();
+    return buffer;
+  }
+}
@@ -0,0 +1,158 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Arrays;
+
+/**
+ * Builds a {@link PatternDatabase} by a breadth first search backward from the solved board.
+ *
+ * The abstract state is the placement of the pattern tiles plus the empty cell. Moving the
+ * empty cell over a non-pattern tile costs nothing, so every time a state is reached the whole
+ * region the empty cell can wander in for free is flooded at the same depth. A placement gets
+ * its distance the first time any of its states is reached.
+ *
+ * Memory is a few bits per abstract state: a 6 tile pattern of the 4x4 board needs about 35MB,
+ * bigger patterns are meant to be built offline and loaded from a file.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternDatabaseBuilder {
+  private final int colCount, rowCount;
+  private final int cellCount;
+  private final int[] tiles;
+  private final PermutationRank ranking;
+  private final int[] neighbors;
+
+  private final int[] positions;
+  private final int[] moved;
+  private final int[] stack;
+
+  public PatternDatabaseBuilder(int colCount, int rowCount, int[] tiles) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.cellCount = colCount * rowCount;
+    this.tiles = tiles.clone();
+    this.ranking = PatternDatabase.createRanking(cellCount, tiles.length);
+    this.neighbors = IdaStarSolver.createNeighbors(colCount, rowCount);
+
+    for (int tile : tiles) {
+      if (tile < 0 || tile >= cellCount - 1) {
+        throw new IllegalArgumentException("invalid pattern tile " + tile);
+      }
+    }
+
+    this.positions = new int[tiles.length];
+    this.moved = new int[tiles.length];
+    this.stack = new int[cellCount];
+  }
+
+  public PatternDatabase build() {
+    int entryCount = (int) ranking.getCount();
+    byte[] extras = new byte[entryCount];
+    Arrays.fill(extras, (byte) -1);
+
+    long stateCount = (long) entryCount * cellCount;
+    LongBitSet visited = new LongBitSet(stateCount);
+    LongBitSet current = new LongBitSet(stateCount);
+    LongBitSet next = new LongBitSet(stateCount);
+
+    // every tile of the solved board is on the cell of its own number
+    for (int i = 0; i < tiles.length; i++) {
+      positions[i] = tiles[i];
+    }
+    int goal = (int) ranking.rank(positions);
+    extras[goal] = 0;
+    flood(goal, occupied(positions), cellCount - 1, visited, current);
+
+    int depth = 0;
+    int lastRank = -1;
+    while (!current.isEmpty()) {
+      for (long state = current.nextSetBit(0); state >= 0; state = current.nextSetBit(state + 1)) {
+        int rank = (int) (state / cellCount);
+        int empty = (int) (state % cellCount);
+        if (rank != lastRank) {
+          ranking.unrank(rank, positions);
+          lastRank = rank;
+        }
+
+        for (int move = 0; move < 4; move++) {
+          int target = neighbors[empty * 4 + move];
+          int slot = target < 0 ? -1 : indexOf(positions, target);
+          if (slot < 0) {
+            // off board, or a free move already covered by the flood
+            continue;
+          }
+
+          System.arraycopy(positions, 0, moved, 0, positions.length);
+          moved[slot] = empty;
+          int movedRank = (int) ranking.rank(moved);
+          if (visited.get((long) movedRank * cellCount + target)) {
+            continue;
+          }
+
+          flood(movedRank, occupied(moved), target, visited, next);
+          if (extras[movedRank] < 0) {
+            extras[movedRank] = (byte) ((depth + 1 - manhattan(moved)) / 2);
+          }
+        }
+      }
+
+      LongBitSet swap = current;
+      current = next;
+      next = swap;
+      next.clear();
+      depth++;
+    }
+
+    return new PatternDatabase(colCount, rowCount, tiles, PatternDatabase.pack(extras));
+  }
+
+  /**
+   * mark every state the empty cell reaches from start without moving a pattern tile
+   */
+  private void flood(int rank, int occupied, int start, LongBitSet visited, LongBitSet target) {
+    long base = (long) rank * cellCount;
+    int top = 0;
+    stack[top++] = start;
+    visited.set(base + start);
+    target.set(base + start);
+
+    while (top > 0) {
+      int cell = stack[--top];
+      for (int move = 0; move < 4; move++) {
+        int neighbor = neighbors[cell * 4 + move];
+        if (neighbor < 0 || (occupied & (1 << neighbor)) != 0 || visited.get(base + neighbor)) {
+          continue;
+        }
+        visited.set(base + neighbor);
+        target.set(base + neighbor);
+        stack[top++] = neighbor;
+      }
+    }
+  }
+
+  private int occupied(int[] positions) {
+    int mask = 0;
+    for (int position : positions) {
+      mask |= 1 << position;
+    }
+    return mask;
+  }
+
+  private int manhattan(int[] positions) {
+    int distance = 0;
+    for (int i = 0; i < tiles.length; i++) {
+      distance += Math.abs(tiles[i] % colCount - positions[i] % colCount)
+          + Math.abs(tiles[i] / colCount - positions[i] / colCount);
+    }
+    return distance;
+  }
+
+  private static int indexOf(int[] values, int value) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
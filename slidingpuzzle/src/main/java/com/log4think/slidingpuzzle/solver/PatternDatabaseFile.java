@@ -0,0 +1,251 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file of a set of pattern databases, read through a memory map so that lookups hit the
+ * page cache directly without copying the tables into the heap.
+ *
+ * Layout, all numbers big endian:
+ * <pre>
+ *   magic         4 bytes "SPDB"
+ *   version       int
+ *   colCount      int
+ *   rowCount      int
+ *   patternCount  int
+ *   per pattern:  tileCount int, tiles int[tileCount], offset long, length int
+ *   checksum      long, CRC32 of everything before it and of all entries
+ *   entries       nibble packed tables, each pattern at its offset from the file start
+ * </pre>
+ *
+ * The patterns have to be disjoint and cover every tile but the empty one, otherwise their sum
+ * isn't the admissible estimate the solver relies on.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternDatabaseFile {
+  public static final int MAGIC = 0x53504442; // "SPDB"
+  public static final int VERSION = 2;
+
+  private PatternDatabaseFile() {
+    // empty
+  }
+
+  public static void write(File file, PatternDatabase... databases) throws IOException {
+    if (databases.length == 0) {
+      throw new IllegalArgumentException("no pattern database");
+    }
+
+    int headerSize = 4 * 5;
+    for (PatternDatabase database : databases) {
+      headerSize += 4 + 4 * database.getTileCount() + 8 + 4;
+    }
+    headerSize += 8;
+
+    ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(databases[0].getColCount());
+    header.putInt(databases[0].getRowCount());
+    header.putInt(databases.length);
+
+    long offset = headerSize;
+    for (PatternDatabase database : databases) {
+      header.putInt(database.getTileCount());
+      for (int tile : database.getTiles()) {
+        header.putInt(tile);
+      }
+      header.putLong(offset);
+      header.putInt(database.getEntries().remaining());
+      offset += database.getEntries().remaining();
+    }
+    header.putLong(checksum(header, header.position(), databases));
+    header.flip();
+
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      FileChannel channel = out.getChannel();
+      writeFully(channel, header);
+      for (PatternDatabase database : databases) {
+        writeFully(channel, database.getEntries());
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  public static PatternDatabase[] map(File file) throws IOException {
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      // the mapping stays valid after the channel is closed
+      FileChannel channel = input.getChannel();
+      return map(channel, 0, channel.size());
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * map a region of a channel, e.g. an uncompressed asset from {@code AssetFileDescriptor}
+   */
+  public static PatternDatabase[] map(FileChannel channel, long offset, long length) throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    return read(buffer);
+  }
+
+  /**
+   * map the file and recompute its checksum first, this touches every page of the file
+   *
+   * @throws IOException if the file is unreadable, truncated or doesn't match the checksum
+   */
+  public static PatternDatabase[] mapVerified(File file) throws IOException {
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = input.getChannel();
+      return mapVerified(channel, 0, channel.size());
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * {@link #map(FileChannel, long, long)} that recomputes the checksum first
+   */
+  public static PatternDatabase[] mapVerified(FileChannel channel, long offset, long length) throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    PatternDatabase[] databases = read(buffer);
+    if (!verify(buffer, databases)) {
+      throw new IOException("pattern database checksum mismatch");
+    }
+    return databases;
+  }
+
+  /**
+   * recompute the checksum, this touches every page of the file
+   */
+  public static boolean verify(File file) throws IOException {
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = input.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return verify(buffer, read(buffer));
+    } finally {
+      input.close();
+    }
+  }
+
+  private static boolean verify(ByteBuffer buffer, PatternDatabase[] databases) {
+    int position = getChecksumPosition(buffer);
+    return checksum(buffer, position, databases) == buffer.getLong(position);
+  }
+
+  /**
+   * @param header its bytes before headerSize are summed up, without the checksum itself
+   */
+  private static long checksum(ByteBuffer header, int headerSize, PatternDatabase[] databases) {
+    CRC32 crc = new CRC32();
+    ByteBuffer fields = header.duplicate();
+    fields.position(0);
+    fields.limit(headerSize);
+    update(crc, fields);
+    for (PatternDatabase database : databases) {
+      update(crc, database.getEntries());
+    }
+    return crc.getValue();
+  }
+
+  private static PatternDatabase[] read(ByteBuffer buffer) throws IOException {
+    try {
+      if (buffer.getInt(0) != MAGIC) {
+        throw new IOException("not a pattern database file");
+      }
+      int version = buffer.getInt(4);
+      if (version != VERSION) {
+        throw new IOException("unsupported pattern database version " + version);
+      }
+
+      int colCount = buffer.getInt(8);
+      int rowCount = buffer.getInt(12);
+      int patternCount = buffer.getInt(16);
+      if (colCount <= 0 || rowCount <= 0 || patternCount <= 0 || patternCount >= colCount * rowCount) {
+        throw new IOException("corrupted pattern database header");
+      }
+
+      PatternDatabase[] databases = new PatternDatabase[patternCount];
+      boolean[] covered = new boolean[colCount * rowCount - 1];
+      int position = 20;
+      for (int p = 0; p < patternCount; p++) {
+        int tileCount = buffer.getInt(position);
+        if (tileCount <= 0 || tileCount >= colCount * rowCount) {
+          throw new IOException("corrupted pattern database header");
+        }
+        position += 4;
+
+        int[] tiles = new int[tileCount];
+        for (int i = 0; i < tileCount; i++) {
+          tiles[i] = buffer.getInt(position);
+          position += 4;
+          if (tiles[i] < 0 || tiles[i] >= covered.length || covered[tiles[i]]) {
+            throw new IOException("pattern database tile " + tiles[i] + " out of range or in two patterns");
+          }
+          covered[tiles[i]] = true;
+        }
+        long offset = buffer.getLong(position);
+        int length = buffer.getInt(position + 8);
+        position += 12;
+
+        if (offset < 0 || offset + length > buffer.capacity()) {
+          throw new IOException("truncated pattern database file");
+        }
+        ByteBuffer entries = buffer.duplicate();
+        entries.position((int) offset);
+        entries.limit((int) offset + length);
+        databases[p] = new PatternDatabase(colCount, rowCount, tiles, entries.slice());
+      }
+      for (int tile = 0; tile < covered.length; tile++) {
+        if (!covered[tile]) {
+          throw new IOException("pattern database misses tile " + tile);
+        }
+      }
+      return databases;
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("truncated pattern database file");
+    } catch (IllegalArgumentException e) {
+      throw new IOException("corrupted pattern database file: " + e.getMessage());
+    }
+  }
+
+  private static int getChecksumPosition(ByteBuffer buffer) {
+    int position = 20;
+    int patternCount = buffer.getInt(16);
+    for (int p = 0; p < patternCount; p++) {
+      position += 4 + 4 * buffer.getInt(position) + 12;
+    }
+    return position;
+  }
+
+  private static void update(CRC32 crc, ByteBuffer entries) {
+    byte[] chunk = new byte[64 * 1024];
+    while (entries.hasRemaining()) {
+      int length = Math.min(chunk.length, entries.remaining());
+      entries.get(chunk, 0, length);
+      crc.update(chunk, 0, length);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
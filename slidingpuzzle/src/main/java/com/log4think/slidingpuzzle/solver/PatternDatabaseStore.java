@@ -0,0 +1,105 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lazily maps the pattern database file of a board size the first time it is asked for, so
+ * nothing is touched before a solver actually needs it. The app ships its tables as uncompressed
+ * assets, which are mapped by {@link #map(int, int, FileChannel, long, long)} instead.
+ *
+ * A file is verified against its checksum when it is mapped, a corrupted table could overestimate
+ * and make the solutions non optimal. Only files that pass are kept; a missing or rejected file
+ * is looked at again on the next call, once it has been (re)generated.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternDatabaseStore {
+  private final File directory;
+  private final Map<String, PatternDatabase[]> databases = new HashMap<String, PatternDatabase[]>();
+  // modification time of the files that failed, so the same broken file isn't verified again
+  private final Map<String, Long> rejected = new HashMap<String, Long>();
+
+  public PatternDatabaseStore(File directory) {
+    this.directory = directory;
+  }
+
+  public static String getFileName(int colCount, int rowCount) {
+    return "pdb_" + colCount + "x" + rowCount + ".spdb";
+  }
+
+  public File getFile(int colCount, int rowCount) {
+    return new File(directory, getFileName(colCount, rowCount));
+  }
+
+  /**
+   * @return the mapped databases, or null if there is no readable file for the board size
+   */
+  public synchronized PatternDatabase[] get(int colCount, int rowCount) {
+    String name = getFileName(colCount, rowCount);
+    PatternDatabase[] result = databases.get(name);
+    if (result != null) {
+      return result;
+    }
+
+    File file = getFile(colCount, rowCount);
+    Long rejectedModified = rejected.get(name);
+    if (!file.isFile() || (rejectedModified != null && rejectedModified == file.lastModified())) {
+      return null;
+    }
+
+    try {
+      result = checkSize(PatternDatabaseFile.mapVerified(file), colCount, rowCount);
+    } catch (IOException e) {
+      rejected.put(name, file.lastModified());
+      return null;
+    }
+
+    rejected.remove(name);
+    databases.put(name, result);
+    return result;
+  }
+
+  /**
+   * map the databases of a board size from a region of a channel, e.g. an uncompressed asset,
+   * unless they are mapped already
+   *
+   * @return the mapped databases, or null if the region doesn't hold valid ones of the size
+   */
+  public synchronized PatternDatabase[] map(int colCount, int rowCount, FileChannel channel, long offset, long length) {
+    String name = getFileName(colCount, rowCount);
+    PatternDatabase[] result = databases.get(name);
+    if (result != null) {
+      return result;
+    }
+
+    try {
+      result = checkSize(PatternDatabaseFile.mapVerified(channel, offset, length), colCount, rowCount);
+    } catch (IOException e) {
+      return null;
+    }
+    databases.put(name, result);
+    return result;
+  }
+
+  private static PatternDatabase[] checkSize(PatternDatabase[] result, int colCount, int rowCount) throws IOException {
+    if (result[0].getColCount() != colCount || result[0].getRowCount() != rowCount) {
+      throw new IOException("pattern database of " + result[0].getColCount() + "x" + result[0].getRowCount());
+    }
+    return result;
+  }
+
+  /**
+   * @return a pattern database heuristic if the file is there, otherwise linear conflict
+   */
+  public Heuristic createHeuristic(int colCount, int rowCount) {
+    PatternDatabase[] result = get(colCount, rowCount);
+    if (result != null) {
+      return new PatternHeuristic(result);
+    }
+    return new ManhattanHeuristic(colCount, rowCount);
+  }
+}
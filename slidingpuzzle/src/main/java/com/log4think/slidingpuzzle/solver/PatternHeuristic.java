@@ -0,0 +1,103 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * Additive heuristic over disjoint {@link PatternDatabase}s.
+ *
+ * The estimate is the Manhattan distance of all tiles plus twice the stored extra of every
+ * pattern. A move only changes the placement of one pattern, so only that one is re-ranked and
+ * looked up again.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternHeuristic implements Heuristic {
+  private final int colCount;
+  private final PatternDatabase[] databases;
+  private final int[] patternOfTile;
+  private final int[] slotOfTile;
+  private final int[][] positions;
+  private final int[] extras;
+
+  private int manhattan;
+  private int extra;
+
+  public PatternHeuristic(PatternDatabase... databases) {
+    if (databases.length == 0) {
+      throw new IllegalArgumentException("no pattern database");
+    }
+
+    this.colCount = databases[0].getColCount();
+    this.databases = databases.clone();
+
+    int size = colCount * databases[0].getRowCount();
+    this.patternOfTile = new int[size];
+    this.slotOfTile = new int[size];
+    this.positions = new int[databases.length][];
+    this.extras = new int[databases.length];
+
+    for (int i = 0; i < size; i++) {
+      patternOfTile[i] = -1;
+    }
+    for (int p = 0; p < databases.length; p++) {
+      PatternDatabase database = databases[p];
+      if (database.getColCount() != colCount || database.getColCount() * database.getRowCount() != size) {
+        throw new IllegalArgumentException("pattern databases of different board sizes");
+      }
+
+      int[] tiles = database.getTiles();
+      positions[p] = new int[tiles.length];
+      for (int slot = 0; slot < tiles.length; slot++) {
+        if (patternOfTile[tiles[slot]] >= 0) {
+          throw new IllegalArgumentException("tile " + tiles[slot] + " is in more than one pattern");
+        }
+        patternOfTile[tiles[slot]] = p;
+        slotOfTile[tiles[slot]] = slot;
+      }
+    }
+  }
+
+  @Override
+  public int reset(int[] tiles) {
+    manhattan = 0;
+    for (int position = 0; position < tiles.length; position++) {
+      int tile = tiles[position];
+      if (tile == tiles.length - 1) {
+        continue;
+      }
+
+      manhattan += distance(tile, position);
+      if (patternOfTile[tile] >= 0) {
+        positions[patternOfTile[tile]][slotOfTile[tile]] = position;
+      }
+    }
+
+    extra = 0;
+    for (int p = 0; p < databases.length; p++) {
+      extras[p] = databases[p].getExtra(databases[p].rank(positions[p]));
+      extra += extras[p];
+    }
+    return manhattan + 2 * extra;
+  }
+
+  @Override
+  public int update(int[] tiles, int tile, int from, int to) {
+    manhattan += distance(tile, to) - distance(tile, from);
+
+    int p = patternOfTile[tile];
+    if (p >= 0) {
+      positions[p][slotOfTile[tile]] = to;
+      extra -= extras[p];
+      extras[p] = databases[p].getExtra(databases[p].rank(positions[p]));
+      extra += extras[p];
+    }
+    return manhattan + 2 * extra;
+  }
+
+  @Override
+  public Heuristic copy() {
+    return new PatternHeuristic(databases);
+  }
+
+  private int distance(int tile, int position) {
+    return Math.abs(tile % colCount - position % colCount) + Math.abs(tile / colCount - position / colCount);
+  }
+}
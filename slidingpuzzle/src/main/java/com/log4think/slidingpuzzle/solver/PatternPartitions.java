@@ -0,0 +1,53 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * Disjoint tile partitions for the additive pattern databases.
+ *
+ * Tiles are numbered row by row from 0, the empty cell is the last one and never part of a
+ * pattern.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public final class PatternPartitions {
+
+  /**
+   * 4x4, the smallest tables, about 6MB. Building them still takes some 35MB and more than ten
+   * seconds on a desktop, so like the others they are generated offline and only read on the
+   * device.
+   */
+  public static final int[][] PARTITION_4X4_663 = {
+      {0, 1, 4, 5, 8, 12},
+      {2, 3, 6, 7, 10, 11},
+      {9, 13, 14},
+  };
+
+  /**
+   * 4x4, much stronger but has to be built offline
+   */
+  public static final int[][] PARTITION_4X4_78 = {
+      {0, 1, 2, 3, 4, 5, 6, 7},
+      {8, 9, 10, 11, 12, 13, 14},
+  };
+
+  /**
+   * 5x5, built offline
+   */
+  public static final int[][] PARTITION_5X5_6666 = {
+      {0, 1, 2, 5, 6, 7},
+      {3, 4, 8, 9, 13, 14},
+      {10, 11, 15, 16, 20, 21},
+      {12, 17, 18, 19, 22, 23},
+  };
+
+  private PatternPartitions() {
+    // empty
+  }
+
+  public static PatternDatabase[] build(int colCount, int rowCount, int[][] partition) {
+    PatternDatabase[] databases = new PatternDatabase[partition.length];
+    for (int i = 0; i < partition.length; i++) {
+      databases[i] = new PatternDatabaseBuilder(colCount, rowCount, partition[i]).build();
+    }
+    return databases;
+  }
+}
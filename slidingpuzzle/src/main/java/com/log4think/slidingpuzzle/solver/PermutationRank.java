@@ -0,0 +1,130 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * Perfect hash of k distinct values out of [0, n), i.e. the placement of k tiles on n cells, or a
+ * full permutation when k == n.
+ *
+ * The rank is the lexicographic index, computed from the Lehmer code: the digit of the i-th value
+ * is the number of smaller values not used before it, which is a popcount on a bit mask of the
+ * used values. Unranking finds the value of a digit by the same popcounts, halving the mask of
+ * the free values five times. So both are O(k), neither allocates and both are safe to call from
+ * several threads.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PermutationRank {
+  public static final int MAX_VALUES = 32;
+
+  private final int valueCount;
+  private final int length;
+  private final long[] weights;
+  private final int[] intWeights;
+  private final long count;
+
+  /**
+   * @param valueCount n, the number of values (cells)
+   * @param length k, the number of values in a permutation (tiles)
+   */
+  public PermutationRank(int valueCount, int length) {
+    if (valueCount <= 0 || valueCount > MAX_VALUES || length <= 0 || length > valueCount) {
+      throw new IllegalArgumentException("invalid permutation of " + length + " out of " + valueCount);
+    }
+
+    this.valueCount = valueCount;
+    this.length = length;
+    this.weights = new long[length];
+
+    // weights[i] is the number of arrangements of the values after i on the remaining ones
+    long weight = 1;
+    for (int i = length - 1; i >= 0; i--) {
+      weights[i] = weight;
+      weight = multiply(weight, valueCount - i);
+    }
+    this.count = weight;
+
+    // int division is a lot cheaper, use it whenever ranks fit
+    this.intWeights = count <= Integer.MAX_VALUE ? new int[length] : null;
+    for (int i = 0; intWeights != null && i < length; i++) {
+      intWeights[i] = (int) weights[i];
+    }
+  }
+
+  private static long multiply(long a, long b) {
+    if (a > Long.MAX_VALUE / b) {
+      throw new IllegalArgumentException("too many permutations for a long rank");
+    }
+    return a * b;
+  }
+
+  public int getValueCount() {
+    return valueCount;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * @return the number of permutations, n! / (n - k)!
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @param values the first k elements are ranked
+   */
+  public long rank(int[] values) {
+    long rank = 0;
+    int used = 0;
+    for (int i = 0; i < length; i++) {
+      int value = values[i];
+      int smaller = value - Integer.bitCount(used & ((1 << value) - 1));
+      rank += smaller * weights[i];
+      used |= 1 << value;
+    }
+    return rank;
+  }
+
+  /**
+   * @param values receives the first k elements of the permutation of the rank
+   */
+  public void unrank(long rank, int[] values) {
+    int free = valueCount == 32 ? -1 : (1 << valueCount) - 1;
+    if (intWeights != null) {
+      int remainder = (int) rank;
+      for (int i = 0; i < length; i++) {
+        int digit = remainder / intWeights[i];
+        remainder -= digit * intWeights[i];
+        free = take(free, digit, values, i);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        int digit = (int) (rank / weights[i]);
+        rank -= digit * weights[i];
+        free = take(free, digit, values, i);
+      }
+    }
+  }
+
+  /**
+   * store the digit-th free value at values[i]
+   *
+   * @return the remaining free values
+   */
+  private static int take(int free, int digit, int[] values, int i) {
+    // binary search for the free value with digit free values below it
+    int candidates = free;
+    int value = 0;
+    for (int width = 16; width > 0; width >>= 1) {
+      int below = Integer.bitCount(candidates & ((1 << width) - 1));
+      if (digit >= below) {
+        digit -= below;
+        candidates >>>= width;
+        value += width;
+      }
+    }
+    values[i] = value;
+    return free & ~(1 << value);
+  }
+}
@@ -0,0 +1,536 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+
+/**
+ * Fast but not optimal solver for boards of any size, e.g. 100x100.
+ *
+ * The unsolved region starts as the whole board. Its top row (or left column, whichever side is
+ * longer) is put in place tile by tile and locked, which shrinks the region by one row (column).
+ * The last two tiles of a row are placed as a pair: the last tile goes to the second last cell,
+ * the second last tile right below it, then both rotate in with two moves. If the second last
+ * tile is already next to it, the pair is solved inside a 2x3 window with an
+ * {@link ExactDistanceTable} instead. Once the region is down to 2x3 or 3x2 it is finished with
+ * the same tables.
+ *
+ * A board of a single row or column is already in order apart from the empty cell, which is
+ * shifted straight to its goal.
+ *
+ * Every tile is moved along an L shaped path, and the empty cell is routed in a straight L
+ * around the moving tile, falling back to a breadth first search only when that is blocked. So
+ * the work is roughly linear in the number of moves, and all of it is on primitive arrays.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ReductionSolver implements Solver {
+  private static final ExactDistanceTable[] FINISH_TABLES = new ExactDistanceTable[3 * 4 + 4];
+
+  private final int colCount, rowCount;
+  private final int size;
+  private final int emptyTile;
+  private final int[] tiles;
+  private final int[] positions;
+  private final boolean[] locked;
+
+  // breadth first search scratch, stamps avoid clearing the visited marks
+  private final int[] stamps;
+  private final int[] queue;
+  private final int[] parentMoves;
+  private final int[] route;
+  private int stamp;
+
+  private int empty;
+  private int regionCol, regionRow;
+  private boolean solvingRow;
+  private int lineNext;
+  private boolean finished;
+  private MoveBuffer moves;
+  private int generation;
+  private volatile boolean cancelled;
+
+  public ReductionSolver(int colCount, int rowCount) {
+    if (colCount < 1 || rowCount < 1) {
+      throw new IllegalArgumentException("invalid board size " + colCount + "x" + rowCount);
+    }
+
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.size = colCount * rowCount;
+    this.emptyTile = size - 1;
+    this.tiles = new int[size];
+    this.positions = new int[size];
+    this.locked = new boolean[size];
+    this.stamps = new int[size];
+    this.queue = new int[size];
+    this.parentMoves = new int[size];
+    this.route = new int[size];
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the board can't be solved
+   */
+  @Override
+  public synchronized int[] solve(int[] initial) {
+    MoveBuffer buffer = new MoveBuffer(size * 8);
+    return solve(initial, buffer) ? buffer.toArray() : null;
+  }
+
+  /**
+   * @param buffer receives the moves
+   * @return false if the search has been cancelled
+   */
+  public synchronized boolean solve(int[] initial, MoveBuffer buffer) {
+    start(initial);
+    moves = buffer;
+    while (step()) {
+      if (cancelled) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * solve lazily, each tile is placed only when the moves before it have been pulled. So the
+   * first move is there after a single tile, however large the board is.
+   *
+   * The iterator works on the state of this solver, starting another solution makes it throw
+   * {@link ConcurrentModificationException}.
+   *
+   * @throws IllegalArgumentException if the board can't be solved
+   */
+  public synchronized MoveIterator iterator(int[] initial) {
+    start(initial);
+    return new Moves(generation);
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+  }
+
+  @Override
+  public void clearCancel() {
+    cancelled = false;
+  }
+
+  private void start(int[] initial) {
+    if (initial.length != size) {
+      throw new IllegalArgumentException("expect " + size + " tiles, got " + initial.length);
+    }
+    if (!Board.isSolvable(initial, colCount)) {
+      throw new IllegalArgumentException("board is not solvable");
+    }
+
+    generation++;
+    for (int i = 0; i < size; i++) {
+      tiles[i] = initial[i];
+      positions[initial[i]] = i;
+      locked[i] = false;
+    }
+    empty = positions[emptyTile];
+    regionCol = 0;
+    regionRow = 0;
+    lineNext = -1;
+    finished = false;
+  }
+
+  /**
+   * place the next tile, or pair of tiles at the end of a line, or finish the last region
+   *
+   * @return false if there was nothing left to do
+   */
+  private boolean step() {
+    if (finished) {
+      return false;
+    }
+
+    int width = colCount - regionCol;
+    int height = rowCount - regionRow;
+    if (lineNext < 0) {
+      if (colCount == 1 || rowCount == 1) {
+        moveLine(empty % colCount, empty / colCount, colCount - 1, rowCount - 1);
+        finished = true;
+        return true;
+      }
+      if (isFinishable(width, height)) {
+        finish();
+        finished = true;
+        return true;
+      }
+      solvingRow = height >= width;
+      lineNext = solvingRow ? regionCol : regionRow;
+    }
+
+    if (solvingRow) {
+      if (lineNext < colCount - 2) {
+        placeTile(regionRow * colCount + lineNext, true);
+        lineNext++;
+      } else {
+        placeRowPair();
+        regionRow++;
+        lineNext = -1;
+      }
+    } else {
+      if (lineNext < rowCount - 2) {
+        placeTile(lineNext * colCount + regionCol, false);
+        lineNext++;
+      } else {
+        placeColPair();
+        regionCol++;
+        lineNext = -1;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isFinishable(int width, int height) {
+    return width <= 3 && height <= 3 && width * height <= 6;
+  }
+
+  private void placeTile(int cell, boolean horizontalFirst) {
+    moveTile(cell, cell, horizontalFirst);
+    locked[cell] = true;
+  }
+
+  /**
+   * put the last two tiles of the top row of the region in place
+   */
+  private void placeRowPair() {
+    int row = regionRow;
+    int first = row * colCount + colCount - 2;
+    int last = first + 1;
+    if (positions[first] != first || positions[last] != last) {
+      // the last tile waits in the second last cell, the second last tile right below it
+      moveTile(last, first, true);
+      if (isInside(positions[first], colCount - 2, row, 2, 3)) {
+        moveEmptyInto(colCount - 2, row, 2, 3, first, positions[first]);
+        solveWindow(colCount - 2, row, 2, 3, first, last);
+      } else {
+        locked[first] = true;
+        moveTile(first, first + colCount, true);
+        locked[first + colCount] = true;
+        moveEmpty(last);
+        locked[first] = false;
+        locked[first + colCount] = false;
+
+        // rotate both in
+        move(Move.LEFT);
+        move(Move.DOWN);
+      }
+    }
+    locked[first] = true;
+    locked[last] = true;
+  }
+
+  /**
+   * put the last two tiles of the left column of the region in place
+   */
+  private void placeColPair() {
+    int col = regionCol;
+    int first = (rowCount - 2) * colCount + col;
+    int last = first + colCount;
+    if (positions[first] != first || positions[last] != last) {
+      // the last tile waits in the second last cell, the second last tile right next to it
+      moveTile(last, first, false);
+      if (isInside(positions[first], col, rowCount - 2, 3, 2)) {
+        moveEmptyInto(col, rowCount - 2, 3, 2, first, positions[first]);
+        solveWindow(col, rowCount - 2, 3, 2, first, last);
+      } else {
+        locked[first] = true;
+        moveTile(first, first + 1, false);
+        locked[first + 1] = true;
+        moveEmpty(last);
+        locked[first] = false;
+        locked[first + 1] = false;
+
+        // rotate both in
+        move(Move.UP);
+        move(Move.RIGHT);
+      }
+    }
+    locked[first] = true;
+    locked[last] = true;
+  }
+
+  /**
+   * solve the remaining region with an exact table
+   */
+  private void finish() {
+    solveWindow(regionCol, regionRow, colCount - regionCol, rowCount - regionRow, -1, -1);
+  }
+
+  /**
+   * renumber a small window holding the empty cell as a board of its own and solve it exactly.
+   * The pinned tiles end up at their goal inside the window, the others fill the remaining cells
+   * in any order.
+   *
+   * @param first a pinned tile, or -1 to pin every tile when the window is the bottom right
+   * corner of the board
+   * @param last the other pinned tile
+   */
+  private void solveWindow(int col, int row, int width, int height, int first, int last) {
+    int count = width * height;
+    int[] local = new int[count];
+    boolean[] used = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      int tile = tiles[(row + i / width) * colCount + col + i % width];
+      int tileCol = tile % colCount - col, tileRow = tile / colCount - row;
+      if (tile == emptyTile) {
+        local[i] = count - 1;
+      } else if (first < 0 || tile == first || tile == last) {
+        local[i] = tileRow * width + tileCol;
+      } else {
+        local[i] = -1;
+        continue;
+      }
+      used[local[i]] = true;
+    }
+
+    int filler = 0, firstFiller = -1, secondFiller = -1;
+    for (int i = 0; i < count; i++) {
+      if (local[i] >= 0) {
+        continue;
+      }
+      while (used[filler]) {
+        filler++;
+      }
+      local[i] = filler++;
+      if (firstFiller < 0) {
+        firstFiller = i;
+      } else if (secondFiller < 0) {
+        secondFiller = i;
+      }
+    }
+    if (!Board.isSolvable(local, width)) {
+      // only the order of the fillers is free, swapping two of them fixes the parity
+      int swap = local[firstFiller];
+      local[firstFiller] = local[secondFiller];
+      local[secondFiller] = swap;
+    }
+
+    for (int move : getFinishTable(width, height).solve(local)) {
+      move(move);
+    }
+  }
+
+  private static ExactDistanceTable getFinishTable(int width, int height) {
+    synchronized (FINISH_TABLES) {
+      int index = width * 4 + height;
+      if (FINISH_TABLES[index] == null) {
+        FINISH_TABLES[index] = ExactDistanceTable.build(width, height);
+      }
+      return FINISH_TABLES[index];
+    }
+  }
+
+  /**
+   * walk a tile to the target one cell at a time, the empty cell goes around it
+   *
+   * @param horizontalFirst which axis to close first when both are open
+   */
+  private void moveTile(int tile, int target, boolean horizontalFirst) {
+    while (positions[tile] != target) {
+      int position = positions[tile];
+      int col = position % colCount, row = position / colCount;
+      int dx = Integer.signum(target % colCount - col);
+      int dy = Integer.signum(target / colCount - row);
+
+      int horizontal = dx != 0 && !locked[position + dx] ? position + dx : -1;
+      int vertical = dy != 0 && !locked[position + dy * colCount] ? position + dy * colCount : -1;
+      int next = horizontalFirst ? (horizontal >= 0 ? horizontal : vertical) : (vertical >= 0 ? vertical : horizontal);
+      if (next < 0) {
+        throw new IllegalStateException("tile " + tile + " is stuck at " + position);
+      }
+
+      locked[position] = true;
+      moveEmpty(next);
+      locked[position] = false;
+      move(Move.of(position % colCount - next % colCount, position / colCount - next / colCount));
+    }
+  }
+
+  /**
+   * route the empty cell to the target around locked cells
+   */
+  private void moveEmpty(int target) {
+    if (empty == target) {
+      return;
+    }
+    if (!moveEmptyStraight(target, true) && !moveEmptyStraight(target, false)) {
+      moveEmptySearch(target % colCount, target / colCount, 1, 1);
+    }
+  }
+
+  /**
+   * route the empty cell to any cell of a window without touching the two given cells
+   */
+  private void moveEmptyInto(int col, int row, int width, int height, int keep, int keepToo) {
+    if (isInside(empty, col, row, width, height)) {
+      return;
+    }
+    locked[keep] = true;
+    locked[keepToo] = true;
+    moveEmptySearch(col, row, width, height);
+    locked[keep] = false;
+    locked[keepToo] = false;
+  }
+
+  private boolean isInside(int cell, int col, int row, int width, int height) {
+    int cellCol = cell % colCount, cellRow = cell / colCount;
+    return cellCol >= col && cellCol < col + width && cellRow >= row && cellRow < row + height;
+  }
+
+  /**
+   * move the empty cell along an L, if no cell on it is locked
+   */
+  private boolean moveEmptyStraight(int target, boolean horizontalFirst) {
+    int col = empty % colCount, row = empty / colCount;
+    int targetCol = target % colCount, targetRow = target / colCount;
+    int cornerCol = horizontalFirst ? targetCol : col;
+    int cornerRow = horizontalFirst ? row : targetRow;
+
+    if (!isLineFree(col, row, cornerCol, cornerRow) || !isLineFree(cornerCol, cornerRow, targetCol, targetRow)) {
+      return false;
+    }
+
+    moveLine(col, row, cornerCol, cornerRow);
+    moveLine(cornerCol, cornerRow, targetCol, targetRow);
+    return true;
+  }
+
+  private boolean isLineFree(int col, int row, int toCol, int toRow) {
+    int dx = Integer.signum(toCol - col), dy = Integer.signum(toRow - row);
+    while (col != toCol || row != toRow) {
+      col += dx;
+      row += dy;
+      if (!isFree(row * colCount + col)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void moveLine(int col, int row, int toCol, int toRow) {
+    int move = Move.of(toCol - col, toRow - row);
+    int steps = Math.abs(toCol - col) + Math.abs(toRow - row);
+    for (int i = 0; i < steps; i++) {
+      move(move);
+    }
+  }
+
+  /**
+   * breadth first search for the nearest free cell of a window
+   */
+  private void moveEmptySearch(int col, int row, int width, int height) {
+    if (++stamp == 0) {
+      Arrays.fill(stamps, 0);
+      stamp = 1;
+    }
+
+    int head = 0, tail = 0;
+    int target = -1;
+    queue[tail++] = empty;
+    stamps[empty] = stamp;
+    while (head < tail && target < 0) {
+      int cell = queue[head++];
+      int cellCol = cell % colCount, cellRow = cell / colCount;
+      for (int move = Move.UP; move <= Move.RIGHT && target < 0; move++) {
+        int nextCol = cellCol + Move.dx(move), nextRow = cellRow + Move.dy(move);
+        if (nextCol < 0 || nextCol >= colCount || nextRow < 0 || nextRow >= rowCount) {
+          continue;
+        }
+        int next = nextRow * colCount + nextCol;
+        if (stamps[next] == stamp || !isFree(next)) {
+          continue;
+        }
+        stamps[next] = stamp;
+        parentMoves[next] = move;
+        queue[tail++] = next;
+        if (isInside(next, col, row, width, height)) {
+          target = next;
+        }
+      }
+    }
+
+    if (target < 0) {
+      throw new IllegalStateException("empty cell can't reach " + width + "x" + height + " at " + col + "," + row);
+    }
+
+    // walk back from the target, then replay forward
+    int length = 0;
+    for (int cell = target; cell != empty; ) {
+      int move = parentMoves[cell];
+      route[length++] = move;
+      cell -= Move.dy(move) * colCount + Move.dx(move);
+    }
+    for (int i = length - 1; i >= 0; i--) {
+      move(route[i]);
+    }
+  }
+
+  private boolean isFree(int cell) {
+    return cell % colCount >= regionCol && cell / colCount >= regionRow && !locked[cell];
+  }
+
+  private void move(int move) {
+    int target = empty + Move.dy(move) * colCount + Move.dx(move);
+    int tile = tiles[target];
+    tiles[empty] = tile;
+    positions[tile] = empty;
+    tiles[target] = emptyTile;
+    positions[emptyTile] = target;
+    empty = target;
+    moves.add(move);
+  }
+
+  private class Moves implements MoveIterator {
+    private final int generation;
+    private final MoveBuffer buffer = new MoveBuffer();
+    private int index;
+
+    Moves(int generation) {
+      this.generation = generation;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (index == buffer.size()) {
+        synchronized (ReductionSolver.this) {
+          if (generation != ReductionSolver.this.generation) {
+            throw new ConcurrentModificationException("the solver has started another solution");
+          }
+
+          buffer.clear();
+          index = 0;
+          moves = buffer;
+          if (!step()) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return buffer.get(index++);
+    }
+  }
+}
@@ -0,0 +1,341 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+import com.log4think.slidingpuzzle.model.Scrambler;
+import com.log4think.slidingpuzzle.utils.XoshiroRandom;
+
+/**
+ * Scrambled boards bucketed by their optimal distance, so a board of a given difficulty is
+ * there right away.
+ *
+ * A background thread keeps the wanted buckets full. Candidates come from random walks whose
+ * length adapts to the wanted distance, or from uniform scrambles once the walks keep falling
+ * short; an optimal {@link Solver} measures each one. Every candidate goes
+ * to the bucket of its distance, not only the wanted one, so little of the solving is wasted.
+ *
+ * Short walks often end on the same board. The measured distances are kept in a
+ * {@link TranspositionTable} of {@link StateCodec packed} boards, so a board is only solved once,
+ * and a bucket never holds the same board twice.
+ *
+ * Each candidate gets {@link #SOLVE_BUDGET} milliseconds, a 4x4 board without a pattern database
+ * can take much longer. Distances beyond the diameter of the board are rejected right away; a
+ * distance that {@link #MAX_MISSES} candidates in a row miss is given up, since it may not exist
+ * for a board size whose diameter isn't known.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ScramblePool {
+  private static final int MAX_SLACK = 64;
+  private static final int DISTANCE_CACHE_CAPACITY = 1 << 14;
+  private static final long SOLVE_BUDGET = 1000;
+  private static final int MAX_MISSES = 256;
+
+  private final int colCount, rowCount;
+  private final Solver solver;
+  private final int bucketCapacity;
+  // only used by the background thread
+  private final Random random = new XoshiroRandom();
+  // one thread refills, the other cancels the solves that run over the budget
+  private final ScheduledExecutorService executor;
+  private final Runnable cancelSolve = new Runnable() {
+    @Override
+    public void run() {
+      solver.cancel();
+    }
+  };
+  // measured distances of the candidates, only used by the background thread
+  private final TranspositionTable distances;
+
+  private final List<ArrayDeque<int[]>> buckets = new ArrayList<ArrayDeque<int[]>>();
+  private final List<Integer> wanted = new ArrayList<Integer>();
+  // extra walk length per wanted distance, grown while the walks come out too short
+  private final List<Integer> slacks = new ArrayList<Integer>();
+  // candidates in a row that missed each wanted distance
+  private final List<Integer> misses = new ArrayList<Integer>();
+  private final List<Integer> givenUp = new ArrayList<Integer>();
+  private boolean refilling;
+  private volatile boolean shutdown;
+
+  /**
+   * @param solver must be optimal, it is only used by the background thread from now on
+   * @param bucketCapacity boards kept per distance
+   */
+  public ScramblePool(int colCount, int rowCount, Solver solver, int bucketCapacity) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.solver = solver;
+    this.bucketCapacity = bucketCapacity;
+    this.distances = colCount * rowCount <= StateCodec.MAX_DOUBLE_SIZE
+        ? new TranspositionTable(DISTANCE_CACHE_CAPACITY, TranspositionTable.POLICY_REPLACE) : null;
+    this.executor = Executors.newScheduledThreadPool(2, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "ScramblePool");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }
+    });
+  }
+
+  public int getColCount() {
+    return colCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return the largest optimal distance of any board of the size, or -1 if it isn't known
+   */
+  public static int getDiameter(int colCount, int rowCount) {
+    if (colCount == 1 || rowCount == 1) {
+      // only the empty cell moves
+      return colCount * rowCount - 1;
+    }
+    int small = Math.min(colCount, rowCount), large = Math.max(colCount, rowCount);
+    if (small == 2) {
+      switch (large) {
+        case 2:
+          return 6;
+        case 3:
+          return 21;
+        case 4:
+          return 36;
+        case 5:
+          return 55;
+      }
+    } else if (small == 3) {
+      switch (large) {
+        case 3:
+          return 31;
+        case 4:
+          return 53;
+      }
+    } else if (small == 4 && large == 4) {
+      return 80;
+    }
+    return -1;
+  }
+
+  /**
+   * @return false if no board of the size has the distance. Every distance up to the diameter is
+   * taken by some board, of either parity, so only the diameter is checked.
+   */
+  public static boolean isReachable(int colCount, int rowCount, int distance) {
+    int diameter = getDiameter(colCount, rowCount);
+    return distance > 0 && (diameter < 0 || distance <= diameter);
+  }
+
+  /**
+   * keep boards of the distance in stock from now on
+   *
+   * @throws IllegalArgumentException if no board of the size has the distance
+   */
+  public synchronized void want(int distance) {
+    if (!isReachable(colCount, rowCount, distance)) {
+      throw new IllegalArgumentException("no " + colCount + "x" + rowCount + " board of distance " + distance);
+    }
+    if (givenUp.contains(distance)) {
+      return;
+    }
+    if (!wanted.contains(distance)) {
+      wanted.add(distance);
+      slacks.add(0);
+      misses.add(0);
+    }
+    scheduleRefill();
+  }
+
+  /**
+   * @return a board whose optimal solution has exactly the given number of moves, or null if the
+   * bucket is empty right now, or no board of the size has the distance
+   */
+  public synchronized int[] take(int distance) {
+    if (!isReachable(colCount, rowCount, distance)) {
+      return null;
+    }
+    want(distance);
+    return distance < buckets.size() ? buckets.get(distance).poll() : null;
+  }
+
+  public synchronized int getCount(int distance) {
+    return distance < buckets.size() ? buckets.get(distance).size() : 0;
+  }
+
+  public void shutdown() {
+    shutdown = true;
+    solver.cancel();
+    executor.shutdownNow();
+  }
+
+  private void scheduleRefill() {
+    if (!refilling && !shutdown) {
+      refilling = true;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          refill();
+        }
+      });
+    }
+  }
+
+  private void refill() {
+    int[] tiles = new int[colCount * rowCount];
+    while (!shutdown) {
+      int target, walkLength;
+      synchronized (this) {
+        target = getMostWanted();
+        if (target < 0) {
+          refilling = false;
+          return;
+        }
+        walkLength = target + slacks.get(wanted.indexOf(target));
+      }
+
+      // walks that keep falling short are given up for uniform scrambles
+      if (walkLength > target + MAX_SLACK) {
+        Scrambler.scramble(tiles, colCount, random);
+      } else {
+        walk(tiles, walkLength);
+      }
+
+      // a cancel of shutdown() comes after the flag, so it is never cleared here
+      solver.clearCancel();
+      if (shutdown) {
+        break;
+      }
+      Future<?> timeout;
+      try {
+        timeout = executor.schedule(cancelSolve, SOLVE_BUDGET, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // shut down meanwhile
+        break;
+      }
+      int distance;
+      try {
+        distance = measure(tiles);
+      } finally {
+        timeout.cancel(false);
+      }
+
+      synchronized (this) {
+        int index = wanted.indexOf(target);
+        if (distance >= 0 && distance < target) {
+          slacks.set(index, Math.min(slacks.get(index) + 2, MAX_SLACK + 2));
+        }
+        // a board the bucket already holds is a miss as well, the distance may have no more
+        boolean added = distance >= 0 && add(distance, tiles.clone());
+        if (added && distance == target) {
+          misses.set(index, 0);
+        } else if (misses.get(index) + 1 >= MAX_MISSES) {
+          giveUp(index);
+        } else {
+          misses.set(index, misses.get(index) + 1);
+        }
+      }
+    }
+  }
+
+  private void giveUp(int index) {
+    givenUp.add(wanted.remove(index));
+    slacks.remove(index);
+    misses.remove(index);
+  }
+
+  /**
+   * @return the optimal distance of the board, or -1 if the solve has been cancelled
+   */
+  private int measure(int[] tiles) {
+    if (distances == null) {
+      int[] solution = solver.solve(tiles);
+      return solution != null ? solution.length : -1;
+    }
+
+    long high, low;
+    if (StateCodec.isSingle(tiles.length)) {
+      high = StateCodec.pack(tiles);
+      low = 0;
+    } else {
+      high = StateCodec.packHigh(tiles);
+      low = StateCodec.packLow(tiles);
+    }
+    int distance = distances.get(high, low, -1);
+    if (distance < 0) {
+      int[] solution = solver.solve(tiles);
+      if (solution == null) {
+        return -1;
+      }
+      distance = solution.length;
+      distances.put(high, low, distance);
+    }
+    return distance;
+  }
+
+  /**
+   * @return the wanted distance with the fewest boards in stock, or -1 if all are full
+   */
+  private int getMostWanted() {
+    int result = -1;
+    for (int distance : wanted) {
+      int count = getCount(distance);
+      if (count < bucketCapacity && (result < 0 || count < getCount(result))) {
+        result = distance;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return whether the board is new to its bucket and has been stocked
+   */
+  private boolean add(int distance, int[] tiles) {
+    while (buckets.size() <= distance) {
+      buckets.add(new ArrayDeque<int[]>());
+    }
+    ArrayDeque<int[]> bucket = buckets.get(distance);
+    if (bucket.size() >= bucketCapacity) {
+      return false;
+    }
+    for (int[] stocked : bucket) {
+      if (Arrays.equals(stocked, tiles)) {
+        return false;
+      }
+    }
+    bucket.add(tiles);
+    return true;
+  }
+
+  /**
+   * random walk of the empty cell from the solved board, never stepping straight back. The
+   * distance has the parity of the length and is at most the length.
+   */
+  private void walk(int[] tiles, int length) {
+    Board board = new Board(colCount, rowCount);
+    int last = Move.NONE;
+    while (length > 0) {
+      int move = random.nextInt(4);
+      if ((last != Move.NONE && move == Move.inverse(last)) || board.move(move) < 0) {
+        continue;
+      }
+      last = move;
+      length--;
+    }
+    board.copyTiles(tiles);
+  }
+}
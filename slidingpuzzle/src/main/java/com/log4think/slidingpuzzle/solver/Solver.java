@@ -0,0 +1,26 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * finds a sequence of {@link com.log4think.slidingpuzzle.model.Move} that restores a board
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public interface Solver {
+  /**
+   * @param tiles position to tile mapping of the board, the last tile is the empty cell
+   * @return the moves of the empty cell, or null if the search has been cancelled
+   */
+  int[] solve(int[] tiles);
+
+  /**
+   * stop a running {@link #solve(int[])} from another thread. A cancel that comes before the
+   * solve starts stops it as well; it stays in effect until {@link #clearCancel()}.
+   */
+  void cancel();
+
+  /**
+   * let the following solves run, the caller clears a cancel before it starts the solve it may
+   * cancel
+   */
+  void clearCancel();
+}
@@ -0,0 +1,112 @@
+package com.log4think.slidingpuzzle.solver;
+
+/**
+ * Packs a board into primitive longs so search code can keep states without objects.
+ *
+ * Boards of up to 16 cells use one long, 4 bits per cell with cell 0 in the lowest nibble.
+ * Boards of up to 25 cells use two longs of 5 bits per cell, 12 cells each; the tile of the last
+ * cell is the one missing from the others and isn't stored.
+ *
+ * The encoding of a valid board is never 0, which lets hash tables use 0 as an empty slot.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public final class StateCodec {
+  public static final int MAX_SINGLE_SIZE = 16;
+  public static final int MAX_DOUBLE_SIZE = 25;
+
+  private static final int DOUBLE_BITS = 5;
+  private static final int DOUBLE_CELLS = 12;
+  private static final long DOUBLE_MASK = (1L << DOUBLE_BITS) - 1;
+
+  private StateCodec() {
+    // empty
+  }
+
+  public static boolean isSingle(int size) {
+    return size <= MAX_SINGLE_SIZE;
+  }
+
+  /**
+   * @param tiles position to tile mapping of at most 16 cells
+   */
+  public static long pack(int[] tiles) {
+    if (tiles.length > MAX_SINGLE_SIZE) {
+      throw new IllegalArgumentException("board of " + tiles.length + " cells doesn't fit in a long");
+    }
+
+    long state = 0;
+    for (int i = tiles.length - 1; i >= 0; i--) {
+      state = (state << 4) | tiles[i];
+    }
+    return state;
+  }
+
+  /**
+   * @param tiles receives the board, its length is the number of cells
+   */
+  public static void unpack(long state, int[] tiles) {
+    for (int i = 0; i < tiles.length; i++) {
+      tiles[i] = (int) (state & 0xF);
+      state >>>= 4;
+    }
+  }
+
+  public static int getTile(long state, int position) {
+    return (int) (state >>> (position << 2)) & 0xF;
+  }
+
+  /**
+   * swap the tiles of two cells, e.g. the empty cell and its neighbor
+   */
+  public static long swap(long state, int a, int b) {
+    long diff = ((state >>> (a << 2)) ^ (state >>> (b << 2))) & 0xF;
+    return state ^ (diff << (a << 2)) ^ (diff << (b << 2));
+  }
+
+  /**
+   * @return the first 12 cells of a board of up to 25 cells
+   */
+  public static long packHigh(int[] tiles) {
+    checkDouble(tiles.length);
+    return packDouble(tiles, 0, Math.min(DOUBLE_CELLS, tiles.length - 1));
+  }
+
+  /**
+   * @return the cells after the first 12 of a board of up to 25 cells, without the last one
+   */
+  public static long packLow(int[] tiles) {
+    checkDouble(tiles.length);
+    return packDouble(tiles, DOUBLE_CELLS, tiles.length - 1);
+  }
+
+  public static void unpack(long high, long low, int[] tiles) {
+    checkDouble(tiles.length);
+
+    int last = tiles.length - 1;
+    int missing = last * (last + 1) / 2;
+    for (int i = 0; i < last; i++) {
+      if (i < DOUBLE_CELLS) {
+        tiles[i] = (int) ((high >>> (i * DOUBLE_BITS)) & DOUBLE_MASK);
+      } else {
+        tiles[i] = (int) ((low >>> ((i - DOUBLE_CELLS) * DOUBLE_BITS)) & DOUBLE_MASK);
+      }
+      missing -= tiles[i];
+    }
+    tiles[last] = missing;
+  }
+
+  private static long packDouble(int[] tiles, int from, int to) {
+    long state = 0;
+    for (int i = to - 1; i >= from; i--) {
+      state = (state << DOUBLE_BITS) | tiles[i];
+    }
+    return state;
+  }
+
+  private static void checkDouble(int size) {
+    if (size > MAX_DOUBLE_SIZE) {
+      throw new IllegalArgumentException("board of " + size + " cells doesn't fit in two longs");
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from packed board states to int values, without boxing.
+ *
+ * Keys are one long from {@link StateCodec#pack(int[])} or a pair of longs from
+ * {@link StateCodec#packHigh(int[])} and {@link StateCodec#packLow(int[])}; the single form is
+ * stored as the pair (key, 0). The pair (0, 0) marks an empty slot.
+ *
+ * What happens when the table is full depends on the policy:
+ * <ul>
+ *   <li>{@link #POLICY_GROW} doubles the capacity and never loses an entry, use it as an exact
+ *   set for duplicate detection</li>
+ *   <li>{@link #POLICY_REPLACE} keeps the capacity and the newest entry overwrites the first slot
+ *   of the probe window</li>
+ *   <li>{@link #POLICY_KEEP_LARGER} keeps the capacity and evicts the entry of the smallest value
+ *   in the probe window, but only if the new value is larger, e.g. the search depth</li>
+ * </ul>
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class TranspositionTable {
+  public static final int POLICY_GROW = 0;
+  public static final int POLICY_REPLACE = 1;
+  public static final int POLICY_KEEP_LARGER = 2;
+
+  private static final int MAX_PROBES = 8;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final int policy;
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  /**
+   * @param capacity rounded up to a power of two
+   */
+  public TranspositionTable(int capacity, int policy) {
+    if (policy < POLICY_GROW || policy > POLICY_KEEP_LARGER) {
+      throw new IllegalArgumentException("unknown policy " + policy);
+    }
+    if (capacity <= 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("invalid capacity " + capacity);
+    }
+
+    this.policy = policy;
+    int powerOfTwo = 1;
+    while (powerOfTwo < capacity) {
+      powerOfTwo <<= 1;
+    }
+    allocate(powerOfTwo);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity * 2];
+    values = new int[capacity];
+    mask = capacity - 1;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return values.length;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    size = 0;
+  }
+
+  public boolean contains(long key) {
+    return indexOf(key, 0) >= 0;
+  }
+
+  public boolean contains(long high, long low) {
+    return indexOf(high, low) >= 0;
+  }
+
+  /**
+   * @return the value of key, or missing if it isn't in the table
+   */
+  public int get(long key, int missing) {
+    return get(key, 0, missing);
+  }
+
+  public int get(long high, long low, int missing) {
+    int index = indexOf(high, low);
+    return index < 0 ? missing : values[index];
+  }
+
+  /**
+   * set semantic of {@link #put(long, int)}
+   *
+   * @return true if key wasn't in the table
+   */
+  public boolean add(long key) {
+    return add(key, 0);
+  }
+
+  public boolean add(long high, long low) {
+    if (indexOf(high, low) >= 0) {
+      return false;
+    }
+    put(high, low, 0);
+    return true;
+  }
+
+  public void put(long key, int value) {
+    put(key, 0, value);
+  }
+
+  public void put(long high, long low, int value) {
+    if (high == 0 && low == 0) {
+      throw new IllegalArgumentException("0 is not a valid key");
+    }
+
+    if (policy == POLICY_GROW) {
+      if ((size + 1) * 4L > values.length * 3L) {
+        grow();
+      }
+      int index = hash(high, low) & mask;
+      while (!isEmpty(index)) {
+        if (keys[index * 2] == high && keys[index * 2 + 1] == low) {
+          values[index] = value;
+          return;
+        }
+        index = (index + 1) & mask;
+      }
+      store(index, high, low, value);
+      return;
+    }
+
+    int home = hash(high, low) & mask;
+    int victim = home;
+    for (int i = 0; i < MAX_PROBES; i++) {
+      int index = (home + i) & mask;
+      if (isEmpty(index)) {
+        store(index, high, low, value);
+        return;
+      }
+      if (keys[index * 2] == high && keys[index * 2 + 1] == low) {
+        if (policy == POLICY_REPLACE || value > values[index]) {
+          values[index] = value;
+        }
+        return;
+      }
+      if (policy == POLICY_KEEP_LARGER && values[index] < values[victim]) {
+        victim = index;
+      }
+    }
+
+    if (policy == POLICY_REPLACE || value > values[victim]) {
+      size--;
+      store(victim, high, low, value);
+    }
+  }
+
+  private int indexOf(long high, long low) {
+    int index = hash(high, low) & mask;
+    int probes = policy == POLICY_GROW ? values.length : MAX_PROBES;
+    for (int i = 0; i < probes && !isEmpty(index); i++) {
+      if (keys[index * 2] == high && keys[index * 2 + 1] == low) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private boolean isEmpty(int index) {
+    return keys[index * 2] == 0 && keys[index * 2 + 1] == 0;
+  }
+
+  private void store(int index, long high, long low, int value) {
+    keys[index * 2] = high;
+    keys[index * 2 + 1] = low;
+    values[index] = value;
+    size++;
+  }
+
+  private void grow() {
+    if (values.length >= MAX_CAPACITY) {
+      throw new IllegalStateException("transposition table is full");
+    }
+
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(values.length * 2);
+    for (int i = 0; i < oldValues.length; i++) {
+      long high = oldKeys[i * 2], low = oldKeys[i * 2 + 1];
+      if (high != 0 || low != 0) {
+        int index = hash(high, low) & mask;
+        while (!isEmpty(index)) {
+          index = (index + 1) & mask;
+        }
+        store(index, high, low, oldValues[i]);
+      }
+    }
+  }
+
+  /**
+   * the finalizer of murmur3, spreads the nibbles of packed boards over the low bits
+   */
+  private static int hash(long high, long low) {
+    long h = high * 0x9E3779B97F4A7C15L ^ low;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+}
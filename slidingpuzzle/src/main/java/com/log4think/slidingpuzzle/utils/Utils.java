@@ -1,57 +1,62 @@
 package com.log4think.slidingpuzzle.utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Random;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Color;
 
+import com.log4think.slidingpuzzle.image.DiskImageCache;
+import com.log4think.slidingpuzzle.image.ImageLoader;
+import com.log4think.slidingpuzzle.image.ImageSource;
+import com.log4think.slidingpuzzle.image.TileAtlas;
+
 /**
  * @author liujinyu <simon.jinyu.liu@gmail.com>
  */
 public class Utils {
+  private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+    @Override
+    protected Random initialValue() {
+      return new XoshiroRandom();
+    }
+  };
 
   public static int randInt(int maxValue) {
-    return new Random().nextInt(maxValue);
+    return RANDOM.get().nextInt(maxValue);
   }
 
   public static int randColor() {
     return Color.rgb(randInt(255), randInt(255), randInt(255));
   }
 
-  public static List<Bitmap> sliceBitmap(Context context, int resourceId, int colCount, int rowCount) {
-    // Drawable globe = ContextCompat.getDrawable(context, resourceId);
-    // if (globe == null) {
-    // return Collections.emptyList();
-    // }
-    // Bitmap bitmap = ((BitmapDrawable) globe).getBitmap();
+  /**
+   * decode the picture once and no larger than the board is shown, the tiles are only rectangles
+   * on it. Pictures that aren't resources are kept downscaled in the {@link DiskImageCache}, so
+   * they are read from there the next time.
+   *
+   * @param width the width of the board on screen
+   * @param height the height of the board on screen
+   */
+  public static TileAtlas sliceBitmap(Context context, ImageSource source, int colCount, int rowCount, int width,
+                                      int height) throws IOException {
+    if (source.isResource()) {
+      return sliceBitmap(ImageLoader.decode(source, width, height), colCount, rowCount);
+    }
 
-    Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), resourceId);
+    DiskImageCache cache = DiskImageCache.getInstance(context);
+    String key = source.getKey() + "@" + width + "x" + height;
+    Bitmap bitmap = cache.get(key);
+    if (bitmap == null) {
+      bitmap = ImageLoader.decode(source, width, height);
+      cache.put(key, bitmap);
+    }
     return sliceBitmap(bitmap, colCount, rowCount);
   }
 
-  public static List<Bitmap> sliceBitmap(Bitmap image, int colCount, int rowCount) {
-    int sliceWidth = image.getWidth() / colCount;
-    int sliceHeight = image.getHeight() / rowCount;
-
-    // slice as square
-    sliceWidth = Math.min(sliceWidth, sliceHeight);
-    sliceHeight = Math.min(sliceWidth, sliceHeight);
-
-    List<Bitmap> slices = new ArrayList<Bitmap>();
-    for (int row = 0; row < rowCount; row++) {
-      for (int col = 0; col < colCount; col++) {
-        int x = col * sliceWidth;
-        int y = row * sliceHeight;
-        Bitmap bitmap = Bitmap.createBitmap(image, x, y, sliceWidth, sliceHeight);
-        slices.add(bitmap);
-      }
-    }
-
-    return slices;
+  public static TileAtlas sliceBitmap(Bitmap image, int colCount, int rowCount) {
+    return new TileAtlas(image, colCount, rowCount);
   }
 
   /**
@@ -0,0 +1,68 @@
+package com.log4think.slidingpuzzle.utils;
+
+import java.util.Random;
+
+/**
+ * xoshiro256** behind the {@link Random} interface, seeded through splitmix64.
+ *
+ * Unlike Random it keeps its state in plain fields instead of an AtomicLong, so it is not thread
+ * safe but a lot cheaper per number. The same seed gives the same sequence on every platform,
+ * and {@link #setSeed(long)} restarts it without allocating. SplittableRandom would do as well
+ * but only comes with API 24.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class XoshiroRandom extends Random {
+  private static final long serialVersionUID = 1L;
+
+  // no initializers, Random's constructor sets them through setSeed before they would run
+  private long s0, s1, s2, s3;
+
+  public XoshiroRandom() {
+    this(System.nanoTime() ^ Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+  }
+
+  public XoshiroRandom(long seed) {
+    super(seed);
+  }
+
+  @Override
+  public synchronized void setSeed(long seed) {
+    // also drops the cached gaussian of Random
+    super.setSeed(seed);
+
+    long x = seed;
+    x += 0x9E3779B97F4A7C15L;
+    s0 = splitMix(x);
+    x += 0x9E3779B97F4A7C15L;
+    s1 = splitMix(x);
+    x += 0x9E3779B97F4A7C15L;
+    s2 = splitMix(x);
+    x += 0x9E3779B97F4A7C15L;
+    s3 = splitMix(x);
+  }
+
+  private static long splitMix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public long nextLong() {
+    long result = Long.rotateLeft(s1 * 5, 7) * 9;
+    long t = s1 << 17;
+    s2 ^= s0;
+    s3 ^= s1;
+    s1 ^= s2;
+    s0 ^= s3;
+    s2 ^= t;
+    s3 = Long.rotateLeft(s3, 45);
+    return result;
+  }
+
+  @Override
+  protected int next(int bits) {
+    return (int) (nextLong() >>> (64 - bits));
+  }
+}
@@ -1,44 +1,98 @@
 package com.log4think.slidingpuzzle.view;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import android.content.Context;
-import android.graphics.Bitmap;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
 import android.graphics.Point;
 import android.graphics.PointF;
+import android.graphics.drawable.ColorDrawable;
+import android.net.Uri;
 import android.os.Handler;
 import android.support.v4.view.MotionEventCompat;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.log4think.slidingpuzzle.R;
+import com.log4think.slidingpuzzle.image.AtlasLoader;
+import com.log4think.slidingpuzzle.image.ImageCache;
+import com.log4think.slidingpuzzle.image.ImageSource;
+import com.log4think.slidingpuzzle.image.TileAtlas;
+import com.log4think.slidingpuzzle.image.TileDrawable;
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+import com.log4think.slidingpuzzle.model.MoveJournal;
+import com.log4think.slidingpuzzle.model.Scrambler;
+import com.log4think.slidingpuzzle.model.TileDrag;
+import com.log4think.slidingpuzzle.solver.ExactDistanceTable;
+import com.log4think.slidingpuzzle.solver.Heuristic;
+import com.log4think.slidingpuzzle.solver.IdaStarSolver;
+import com.log4think.slidingpuzzle.solver.MoveIterator;
+import com.log4think.slidingpuzzle.solver.PatternDatabaseStore;
+import com.log4think.slidingpuzzle.solver.ReductionSolver;
+import com.log4think.slidingpuzzle.solver.ScramblePool;
+import com.log4think.slidingpuzzle.solver.Solver;
 import com.log4think.slidingpuzzle.utils.Log;
 import com.log4think.slidingpuzzle.utils.Utils;
+import com.log4think.slidingpuzzle.utils.XoshiroRandom;
 
 /**
  * @author liujinyu <simon.jinyu.liu@gmail.com>
  */
 public class BoardView extends ViewGroup implements View.OnTouchListener {
+  public static final int RESTORE_MODE_HISTORY = 0;
+  public static final int RESTORE_MODE_OPTIMAL = 1;
+
   private static final String TAG = Log.tag(BoardView.class);
-  private static final int MAX_SHUFFLE_STEPS = 50;
   private static final int CELL_ANIMATION_DURATION_SHORT = 100;
+  private static final int RESTORE_MOVE_INTERVAL = 300;
+  // larger boards restore by a solution instead of replaying the history
+  private static final int MAX_HISTORY_RESTORE_SIZE = 25;
+  private static final int MAX_OPTIMAL_RESTORE_SIZE = 25;
+  private static final int OPTIMAL_RESTORE_BUDGET = 2000;
+  private static final int SCRAMBLE_POOL_CAPACITY = 4;
 
   private int childWidth, childHeight;
   private int cellPadding;
   private int colCount, rowCount;
 
+  private Board board;
   private List<CellView> cellViews;
-  private Direction capturedDirection;
-  private PointF lastDragPoint;
-  private List<CellView> capturedViews;
+  private TileAtlas atlas;
+  private ImageSource imageSource;
+  private AtlasLoader.Request atlasRequest;
+  private int placeholderColor;
+  // the cells between the touched one and the empty cell, following the finger
+  private final TileDrag drag = new TileDrag();
+  // scratch objects, so touch events allocate nothing
+  private final int[] touchLocation = new int[2];
+  private final PointF touchPoint = new PointF();
+  private final Point cellPosition = new Point();
   private CellView emptyView;
   private int activePointerId;
-  private List<Direction> puzzlePath;
+  private MoveJournal puzzlePath;
+  private ExactDistanceTable exactTable;
+  private ReductionSolver reductionSolver;
+  private IdaStarSolver optimalSolver;
+  private PatternDatabaseStore patternDatabaseStore;
+  private int restoreMode = RESTORE_MODE_HISTORY;
+  private int difficulty;
+  private volatile ScramblePool scramblePool;
+  // whether undoing the whole history solves the board
+  private boolean historyFromSolved = true;
+  private final Random random = new XoshiroRandom();
 
   private Handler handler = new Handler();
   private ExecutorService executorService = Executors.newSingleThreadExecutor();
@@ -64,28 +118,47 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
     rowCount = 1;
     activePointerId = MotionEvent.INVALID_POINTER_ID;
     cellViews = new ArrayList<CellView>();
-    capturedViews = new ArrayList<CellView>();
-    puzzlePath = new ArrayList<Direction>();
+    puzzlePath = new MoveJournal();
+    imageSource = defaultImageSource(getResources());
+    placeholderColor = getResources().getColor(R.color.colorPrimaryLight);
   }
 
   public void setBoardSize(int colCount, int rowCount) {
     this.colCount = colCount;
     this.rowCount = rowCount;
     reset();
+    setDifficulty(difficulty);
   }
 
-  private void reset() {
-    // load image
-    List<Bitmap> slices = Utils.sliceBitmap(getContext(), R.drawable.globe, colCount, rowCount);
+  /**
+   * play with another picture, which starts a new board. A picture that can't be read falls
+   * back to the default one.
+   */
+  public void setImage(Uri uri) {
+    imageSource = ImageSource.of(getContext().getContentResolver(), uri);
+    if (atlasRequest != null) {
+      atlasRequest.cancel();
+      atlasRequest = null;
+    }
+    releaseAtlas();
+    if (board != null) {
+      setBoardSize(colCount, rowCount);
+    }
+  }
 
-    // generate sliced cell views
+  private void reset() {
+    // generate cell views, indexed by tile, showing placeholders until the picture is there
+    board = new Board(colCount, rowCount);
+    puzzlePath.clear();
+    historyFromSolved = true;
+    drag.setBoardSize(colCount, rowCount);
     cellViews.clear();
-    for (int i = 0; i < slices.size(); i++) {
+    for (int i = 0; i < board.getSize(); i++) {
       CellView view = new CellView(getContext());
       view.setOnTouchListener(this);
       view.setIndex(i);
       view.setCoord(i % colCount, i / colCount);
-      view.setImageBitmap(slices.get(i));
+      view.setImageDrawable(new ColorDrawable(placeholderColor));
       cellViews.add(view);
     }
 
@@ -94,13 +167,97 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
       emptyView = cellViews.get(cellViews.size() - 1);
       emptyView.setEmpty(true);
     }
-    slices.clear();
 
     // add views to UI
     removeAllViews();
     for (View cell : cellViews) {
       addView(cell);
     }
+
+    // load image once, other board sizes only re-cut it
+    if (atlas != null) {
+      setAtlas(new TileAtlas(atlas.getBitmap(), colCount, rowCount));
+    } else {
+      loadAtlas();
+    }
+  }
+
+  private void loadAtlas() {
+    if (atlasRequest != null) {
+      atlasRequest.cancel();
+    }
+
+    Point size = getBoardPixelSize();
+    atlasRequest = AtlasLoader.getInstance(getContext()).load(imageSource, colCount, rowCount, size.x, size.y,
+        new AtlasLoader.Callback() {
+          @Override
+          public void onLoaded(TileAtlas atlas) {
+            atlasRequest = null;
+            setAtlas(atlas);
+          }
+
+          @Override
+          public void onFailed(IOException e) {
+            atlasRequest = null;
+            if (imageSource.equals(defaultImageSource(getResources()))) {
+              // keep the colour placeholders, the game still works without a picture
+              Log.e(TAG, "can't load the default picture", e);
+              return;
+            }
+            Log.e(TAG, "can't load " + imageSource + ", back to the default picture", e);
+            imageSource = defaultImageSource(getResources());
+            loadAtlas();
+          }
+        });
+  }
+
+  /**
+   * hand the picture back, it may be pooled and decoded over, so the cells go back to
+   * placeholders first
+   */
+  private void releaseAtlas() {
+    if (atlas != null) {
+      for (CellView view : cellViews) {
+        view.setImageDrawable(new ColorDrawable(placeholderColor));
+      }
+      ImageCache.getInstance().release(atlas.getBitmap());
+      atlas = null;
+    }
+  }
+
+  private void setAtlas(TileAtlas atlas) {
+    if (this.atlas != null && this.atlas.getBitmap() != atlas.getBitmap()) {
+      ImageCache.getInstance().release(this.atlas.getBitmap());
+    }
+    this.atlas = atlas;
+    for (CellView view : cellViews) {
+      view.setImageDrawable(new TileDrawable(atlas, view.getIndex()));
+    }
+  }
+
+  private static ImageSource defaultImageSource(Resources resources) {
+    return ImageSource.of(resources, R.drawable.globe);
+  }
+
+  /**
+   * decode the default picture for a board of the size ahead of time, for instance before the
+   * activity that shows the board is started
+   */
+  public static void prewarm(Context context, int colCount, int rowCount) {
+    Resources resources = context.getResources();
+    Point size = AtlasLoader.getScreenFitSize(resources, colCount, rowCount);
+    AtlasLoader.getInstance(context).prefetch(defaultImageSource(resources), colCount, rowCount, size.x, size.y);
+  }
+
+  /**
+   * the size of the board on screen, before the first measure as large as the short side of the
+   * screen allows
+   */
+  private Point getBoardPixelSize() {
+    if (childWidth == 0) {
+      return AtlasLoader.getScreenFitSize(getResources(), colCount, rowCount);
+    }
+    return new Point(childWidth * colCount, childHeight * rowCount);
   }
 
   @Override
@@ -119,6 +276,7 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
     // make the board to square
     childWidth = Math.min(childWidth, childHeight);
     childHeight = Math.min(childWidth, childHeight);
+    drag.setCellSize(childWidth, childHeight);
 
     // re-calculate dimension
     int vw = childWidth * colCount + getPaddingLeft() + getPaddingRight();
@@ -136,20 +294,18 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
     }
   }
 
-  private PointF getRawXY(View v, MotionEvent event) {
-    return getRawXY(v, event, MotionEventCompat.getActionIndex(event));
-  }
-
-  private PointF getRawXY(View v, MotionEvent event, int pointerIndex) {
-    final int location[] = {0, 0};
-    v.getLocationOnScreen(location);
-    if (pointerIndex < MotionEventCompat.getPointerCount(event)) {
-      final float x = MotionEventCompat.getX(event, pointerIndex) + location[0];
-      final float y = MotionEventCompat.getY(event, pointerIndex) + location[1];
-      return new PointF(x, y);
-    } else {
-      return null;
+  /**
+   * @param out receives the position of the pointer on the screen
+   * @return false if there is no such pointer
+   */
+  private boolean getRawXY(View v, MotionEvent event, int pointerIndex, PointF out) {
+    if (pointerIndex < 0 || pointerIndex >= MotionEventCompat.getPointerCount(event)) {
+      return false;
     }
+    v.getLocationOnScreen(touchLocation);
+    out.set(MotionEventCompat.getX(event, pointerIndex) + touchLocation[0],
+        MotionEventCompat.getY(event, pointerIndex) + touchLocation[1]);
+    return true;
   }
 
   @Override
@@ -176,9 +332,10 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
     switch (action) {
       case MotionEvent.ACTION_DOWN: {
         if (activePointerId == MotionEvent.INVALID_POINTER_ID) {
-          capturedDirection = getEmptyCellDirection(view);
-          capturedViews = getCellsToEmptyView(view);
-          lastDragPoint = getRawXY(v, event);
+          drag.start(board, view.getIndex());
+          if (getRawXY(v, event, MotionEventCompat.getActionIndex(event), touchPoint)) {
+            drag.anchor(touchPoint.x, touchPoint.y);
+          }
           activePointerId = MotionEventCompat.getPointerId(event, 0);
         }
         break;
@@ -192,26 +349,20 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
 
         activePointerId = MotionEvent.INVALID_POINTER_ID;
 
-        if (getMovedDelta() > childWidth / 2 || getMovedDelta() > childHeight / 2 // moved half way
-            || getMovedDelta() < 5 // click
-        ) {
+        if (drag.isCommitted()) {
           // move empty cell to touched cell
-          Direction direction = getNegativeDirection(capturedDirection);
-          for (int i = 0; i < capturedViews.size(); i++) {
+          int move = Move.inverse(drag.getMove());
+          Direction direction = Direction.of(Move.dx(move), Move.dy(move));
+          for (int i = 0; i < drag.getCount(); i++) {
             moveEmptyCell(direction);
-            puzzlePath.add(direction);
+            puzzlePath.add(move);
           }
-
-          // move all other captured cells to new place
-          // moveCells(capturedViews, capturedDirection);
         } else {
           // move cell views to original place
-          animateMoveCells(capturedViews, CELL_ANIMATION_DURATION_SHORT);
+          animateMoveCapturedCells(CELL_ANIMATION_DURATION_SHORT);
         }
 
-        capturedDirection = null;
-        capturedViews = null;
-        lastDragPoint = null;
+        drag.release();
         break;
       }
 
@@ -221,18 +372,12 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
         }
 
         final int pointerIndex = MotionEventCompat.findPointerIndex(event, activePointerId);
-        PointF p = null;
-        try {
-          p = getRawXY(v, event, pointerIndex);
-        } catch (Exception e) {}
-        if (p == null)
+        if (!getRawXY(v, event, pointerIndex, touchPoint))
           break;
 
-        if (lastDragPoint != null) {
-          moveCapturedCells(p.x - lastDragPoint.x, p.y - lastDragPoint.y);
+        if (drag.drag(touchPoint.x, touchPoint.y)) {
+          moveCapturedCells();
         }
-
-        lastDragPoint = p;
         break;
       }
 
@@ -245,7 +390,11 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
           // choose another pointer
           final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
           if (newPointerIndex < MotionEventCompat.getPointerCount(event)) {
-            lastDragPoint = getRawXY(v, event, newPointerIndex);
+            if (getRawXY(v, event, newPointerIndex, touchPoint)) {
+              drag.anchor(touchPoint.x, touchPoint.y);
+            } else {
+              drag.unanchor();
+            }
             activePointerId = MotionEventCompat.getPointerId(event, newPointerIndex);
           }
         }
@@ -258,24 +407,22 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
 
   /**
    * @param view
-   * @return calculate the position of the view
+   * @return calculate the position of the view, in a scratch point that the next call overwrites
    */
   private Point calculateCellViewPosition(CellView view) {
-    return new Point(getPaddingLeft() + view.getCol() * childWidth,
+    cellPosition.set(getPaddingLeft() + view.getCol() * childWidth,
         getPaddingTop() + view.getRow() * childHeight);
+    return cellPosition;
   }
 
   /**
-   * move the cells by animate
+   * move the captured cells back by animate
    *
-   * @param views
    * @param duration
    */
-  private void animateMoveCells(List<CellView> views, int duration) {
-    if (views != null) {
-      for (CellView view : views) {
-        animateMoveCell(view, duration);
-      }
+  private void animateMoveCapturedCells(int duration) {
+    for (int i = 0; i < drag.getCount(); i++) {
+      animateMoveCell(cellViews.get(drag.getTile(i)), duration);
     }
   }
 
@@ -291,134 +438,27 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
   }
 
   /**
-   * move the captured cells with the touch event
-   *
-   * @param dx
-   * @param dy
+   * put the captured cells where the drag has taken them
    */
-  private void moveCapturedCells(float dx, float dy) {
-    if (capturedViews == null || capturedViews.size() == 0) {
-      return;
-    }
-
-    CellView cellView = capturedViews.get(0);
-    Point p = calculateCellViewPosition(cellView);
-
-    if (capturedDirection.x != 0) {
-      dy = 0;
-      if (!Utils.isValueInRange(cellView.getX() + dx, p.x, p.x + capturedDirection.x * childWidth)) {
-        return;
-      }
-    } else if (capturedDirection.y != 0) {
-      dx = 0;
-      if (!Utils.isValueInRange(cellView.getY() + dy, p.y, p.y + capturedDirection.y * childHeight)) {
-        return;
-      }
-    }
-
-    // set the cells position
-    for (CellView view : capturedViews) {
-      view.setX(view.getX() + dx);
-      view.setY(view.getY() + dy);
+  private void moveCapturedCells() {
+    for (int i = 0; i < drag.getCount(); i++) {
+      CellView view = cellViews.get(drag.getTile(i));
+      Point p = calculateCellViewPosition(view);
+      view.setX(p.x + drag.getOffsetX());
+      view.setY(p.y + drag.getOffsetY());
     }
   }
 
   private CellView getEmptyView() {
-    for (CellView view : cellViews) {
-      if (view.isEmpty()) {
-        return view;
-      }
-    }
-    return null;
-  }
-
-  private CellView getView(int col, int row) {
-    if (col < 0 || col > colCount - 1 || row < 0 || row > rowCount - 1) {
+    if (board == null) {
       return null;
     }
-
-    for (CellView view : cellViews) {
-      if (view.getCol() == col && view.getRow() == row) {
-        return view;
-      }
-    }
-    return null;
-  }
-
-  /**
-   * @param view
-   * @return all cells between specific view and empty view
-   */
-  private List<CellView> getCellsToEmptyView(CellView view) {
-    List<CellView> result = new ArrayList<CellView>();
-
-    if (emptyView.isAbove(view)) {
-      for (int i = view.getRow(); i > emptyView.getRow(); i--) {
-        result.add(getView(view.getCol(), i));
-      }
-    } else if (emptyView.isBelow(view)) {
-      for (int i = view.getRow(); i < emptyView.getRow(); i++) {
-        result.add(getView(view.getCol(), i));
-      }
-    } else if (emptyView.isToLeftOf(view)) {
-      for (int i = view.getCol(); i > emptyView.getCol(); i--) {
-        result.add(getView(i, view.getRow()));
-      }
-    } else if (emptyView.isToRightOf(view)) {
-      for (int i = view.getCol(); i < emptyView.getCol(); i++) {
-        result.add(getView(i, view.getRow()));
-      }
-    }
-
-    return result;
-  }
-
-  private Direction getEmptyCellDirection(CellView cellView) {
-    if (emptyView.isAbove(cellView)) {
-      return new Direction(0, -1);
-    } else if (emptyView.isBelow(cellView)) {
-      return new Direction(0, 1);
-    } else if (emptyView.isToLeftOf(cellView)) {
-      return new Direction(-1, 0);
-    } else if (emptyView.isToRightOf(cellView)) {
-      return new Direction(1, 0);
-    } else {
-      return new Direction(0, 0);
-    }
-  }
-
-  private int getMovedDelta() {
-    if (capturedViews == null || capturedViews.size() == 0) {
-      return 0;
-    }
-
-    CellView view = capturedViews.get(0);
-    Point p = calculateCellViewPosition(view);
-    int deltaX = (int) Math.abs(p.x - view.getX());
-    int deltaY = (int) Math.abs(p.y - view.getY());
-
-    if (deltaX != 0) {
-      return deltaX;
-    } else {
-      return deltaY;
-    }
+    return cellViews.get(board.getEmptyTile());
   }
 
-  private Direction getRandomDirection() {
-    switch (Utils.randInt(4)) {
-      case 0:
-        return new Direction(0, 1);
-      case 1:
-        return new Direction(1, 0);
-      case 2:
-        return new Direction(0, -1);
-      default:
-        return new Direction(-1, 0);
-    }
-  }
-
-  private Direction getNegativeDirection(Direction direction) {
-    return new Direction(-direction.x, -direction.y);
+  private CellView getView(int col, int row) {
+    int tile = board == null ? -1 : board.getTile(col, row);
+    return tile < 0 ? null : cellViews.get(tile);
   }
 
   private void moveCells(List<CellView> cellViews, Direction direction) {
@@ -434,22 +474,18 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
       return null;
     }
 
-    int targetCol = emptyView.getCol() + direction.x;
-    int targetRow = emptyView.getRow() + direction.y;
-
-    CellView view = getView(targetCol, targetRow);
+    int tile = board.move(Move.of(direction.x, direction.y));
+    CellView view = tile < 0 ? null : cellViews.get(tile);
     if (view != null) {
-      view.setCoord(emptyView.getCol(), emptyView.getRow());
-      emptyView.setCoord(targetCol, targetRow);
+      view.setCoord(board.getCol(tile), board.getRow(tile));
+      emptyView.setCoord(board.getEmptyCol(), board.getEmptyRow());
 
       Point p = calculateCellViewPosition(emptyView);
       emptyView.layout(p.x, p.y, p.x + childWidth, p.y + childHeight);
 
       animateMoveCell(view, CELL_ANIMATION_DURATION_SHORT);
 
-      if (onMovedListener != null) {
-        onMovedListener.onMoved();
-      }
+      notifyMoved(1);
     }
     return view;
   }
@@ -459,110 +495,499 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
   }
 
   /**
-   * Shuffle the puzzle cells
+   * Shuffle the puzzle cells to a uniformly random solvable board, all at once
    */
   public void shuffle() {
     if (!isEnabled() || colCount == 0 || rowCount == 0 || emptyView == null) {
       return;
     }
 
-    setEnabled(false);
+    ScramblePool pool = scramblePool;
+    int[] tiles = null;
+    if (difficulty > 0 && pool != null && pool.getColCount() == colCount && pool.getRowCount() == rowCount) {
+      tiles = pool.take(difficulty);
+      if (tiles == null) {
+        Log.d(TAG, "no board of distance %d in stock yet", difficulty);
+      }
+    }
+    setTiles(tiles != null ? tiles : Scrambler.scramble(colCount, rowCount, random));
+  }
+
+  /**
+   * Shuffle to the board of the seed, which is the same on every device
+   */
+  public void shuffle(long seed) {
+    if (!isEnabled() || colCount == 0 || rowCount == 0 || emptyView == null) {
+      return;
+    }
+
+    setTiles(Scrambler.scramble(colCount, rowCount, seed));
+  }
+
+  /**
+   * @return the current board packed by {@link Scrambler#encode(int[])}
+   */
+  public byte[] encodeBoard() {
+    int[] tiles = new int[board.getSize()];
+    board.copyTiles(tiles);
+    return Scrambler.encode(tiles);
+  }
+
+  /**
+   * @param difficulty the optimal number of moves of the boards {@link #shuffle()} makes, or 0
+   * for uniformly random boards. Boards of that distance are searched in the background and kept
+   * in stock, which only works up to 5x5; until one is there shuffle() stays uniform. So does a
+   * difficulty beyond the diameter of the board.
+   */
+  public void setDifficulty(final int difficulty) {
+    this.difficulty = difficulty;
+    if (difficulty <= 0 || board == null || board.getSize() > MAX_OPTIMAL_RESTORE_SIZE) {
+      return;
+    }
+    if (!ScramblePool.isReachable(colCount, rowCount, difficulty)) {
+      Log.w(TAG, "no %dx%d board of distance %d", colCount, rowCount, difficulty);
+      return;
+    }
 
-    Direction lastNegativeDirection = puzzlePath.isEmpty() ?
-        new Direction(0, 0) : getNegativeDirection(puzzlePath.get(puzzlePath.size() - 1));
+    final int cols = colCount, rows = rowCount;
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        getScramblePool(cols, rows).want(difficulty);
+      }
+    });
+  }
 
-    int steps = Utils.randInt(MAX_SHUFFLE_STEPS) + 10;
-    while (steps > 0) {
-      Direction direction = getRandomDirection();
-      while (direction.equals(lastNegativeDirection)) {
-        direction = getRandomDirection();
+  /**
+   * on the worker thread, the pool gets a solver of its own
+   */
+  private ScramblePool getScramblePool(int cols, int rows) {
+    ScramblePool pool = scramblePool;
+    if (pool == null || pool.getColCount() != cols || pool.getRowCount() != rows) {
+      if (pool != null) {
+        pool.shutdown();
       }
-      CellView view = moveEmptyCell(direction);
-      if (view != null) {
-        puzzlePath.add(direction);
-        lastNegativeDirection = getNegativeDirection(direction);
-        steps--;
+      Solver solver = ExactDistanceTable.isSupported(cols, rows) ? getExactTable(cols, rows) :
+          new IdaStarSolver(cols, rows, createHeuristic(cols, rows));
+      pool = new ScramblePool(cols, rows, solver, SCRAMBLE_POOL_CAPACITY);
+      scramblePool = pool;
+    }
+    return pool;
+  }
+
+  /**
+   * on the worker thread, pattern databases from the files dir or else the shipped asset, which
+   * is stored uncompressed so it can be mapped in place
+   */
+  private Heuristic createHeuristic(int cols, int rows) {
+    if (patternDatabaseStore == null) {
+      patternDatabaseStore = new PatternDatabaseStore(getContext().getFilesDir());
+    }
+    if (patternDatabaseStore.get(cols, rows) == null) {
+      try {
+        AssetFileDescriptor asset = getContext().getAssets().openFd(PatternDatabaseStore.getFileName(cols, rows));
+        try {
+          FileInputStream in = asset.createInputStream();
+          if (patternDatabaseStore.map(cols, rows, in.getChannel(), asset.getStartOffset(), asset.getLength()) == null) {
+            Log.w(TAG, "broken pattern database asset for %dx%d", cols, rows);
+          }
+        } finally {
+          asset.close();
+        }
+      } catch (IOException e) {
+        Log.d(TAG, "no pattern database for %dx%d, using linear conflict", cols, rows);
       }
     }
+    return patternDatabaseStore.createHeuristic(cols, rows);
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    // the picture was released when the view was detached
+    if (board != null && atlas == null && atlasRequest == null) {
+      loadAtlas();
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    if (moveDispatchScheduled) {
+      Choreographer.getInstance().removeFrameCallback(moveDispatcher);
+      moveDispatchScheduled = false;
+      pendingMoveCount = 0;
+    }
+    if (atlasRequest != null) {
+      atlasRequest.cancel();
+      atlasRequest = null;
+    }
+    releaseAtlas();
+    ScramblePool pool = scramblePool;
+    if (pool != null) {
+      pool.shutdown();
+      scramblePool = null;
+    }
+  }
+
+  /**
+   * put every cell view at its new place in a single layout pass, without animation. The
+   * history doesn't lead to this board, so it is dropped.
+   */
+  private void setTiles(int[] tiles) {
+    board.setTiles(tiles);
+    puzzlePath.clear();
+    historyFromSolved = false;
+
+    for (int tile = 0; tile < cellViews.size(); tile++) {
+      CellView view = cellViews.get(tile);
+      view.animate().cancel();
+      view.setTranslationX(0);
+      view.setTranslationY(0);
+      view.setCoord(board.getCol(tile), board.getRow(tile));
+    }
+    requestLayout();
+
+    notifyMoved(0);
+  }
+
+  /**
+   * the listener hears of the moves once, on the next frame, however many there are until then
+   */
+  private void notifyMoved(int count) {
+    if (!moveDispatchScheduled) {
+      moveDispatchScheduled = true;
+      pendingFromSteps = puzzlePath.length();
+      Choreographer.getInstance().postFrameCallback(moveDispatcher);
+    }
+    pendingMoveCount += count;
+  }
 
-    setEnabled(true);
+  private void dispatchMoved() {
+    moveDispatchScheduled = false;
+    int count = pendingMoveCount;
+    pendingMoveCount = 0;
+    if (onMovedListener != null) {
+      onMovedListener.onMoved(count, pendingFromSteps, puzzlePath.length());
+    }
   }
 
   public void restore() {
-    if (!isEnabled()) {
+    if (!isEnabled() || board == null) {
       return;
     }
 
     setEnabled(false);
 
+    final int[] tiles = new int[board.getSize()];
+    board.copyTiles(tiles);
+    final int cols = colCount, rows = rowCount;
+    // the worker only produces moves, the journal is only touched here on the main thread
+    final int[] history = historyFromSolved && board.getSize() <= MAX_HISTORY_RESTORE_SIZE ? getUndoMoves() : null;
+    final boolean optimal = restoreMode == RESTORE_MODE_OPTIMAL && board.getSize() <= MAX_OPTIMAL_RESTORE_SIZE;
+
     executorService.execute(
         new Runnable() {
           @Override
           public void run() {
-            for (int i = puzzlePath.size() - 1; i >= 0; i--) {
-              final Direction direction = getNegativeDirection(puzzlePath.get(i));
-              puzzlePath.remove(i);
+            // the board is enabled again however the solution ends, a solver failure included
+            boolean restored = false;
+            try {
+              MoveIterator moves = null;
+              if (optimal) {
+                int[] solution = solveOptimal(cols, rows, tiles);
+                if (solution != null) {
+                  moves = new SolutionMoves(solution);
+                } else {
+                  Log.d(TAG, "no optimal solution within %d ms", OPTIMAL_RESTORE_BUDGET);
+                }
+              }
 
+              // the solution is pulled move by move, so the first one shows up right away
+              final boolean undo = moves == null && history != null;
+              if (moves == null) {
+                moves = undo ? new SolutionMoves(history) : getReductionSolver(cols, rows).iterator(tiles);
+              }
+              while (moves.hasNext()) {
+                final int move = moves.next();
+
+                handler.post(new Runnable() {
+                  @Override
+                  public void run() {
+                    restoreMove(move, undo);
+                  }
+                });
+
+                try {
+                  Thread.sleep(RESTORE_MOVE_INTERVAL);
+                } catch (InterruptedException e) {
+                  e.printStackTrace();
+                }
+              }
+
+              restored = true;
+            } finally {
+              final boolean solved = restored;
               handler.post(new Runnable() {
                 @Override
                 public void run() {
-                  moveEmptyCell(direction);
+                  if (solved) {
+                    // the listener hears of the steps going back to 0
+                    notifyMoved(0);
+                    puzzlePath.clear();
+                    historyFromSolved = true;
+                  }
+                  setEnabled(true);
                 }
               });
-
-              try {
-                Thread.sleep(300);
-              } catch (InterruptedException e) {
-                e.printStackTrace();
-              }
             }
+          }
+        });
+  }
+
+  /**
+   * @return the moves that undo the whole history, the last one first
+   */
+  private int[] getUndoMoves() {
+    int[] moves = new int[puzzlePath.length()];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = Move.inverse(puzzlePath.get(moves.length - 1 - i));
+    }
+    return moves;
+  }
+
+  /**
+   * make a move of the restore, undoing the history or recording a solver move like any other
+   */
+  private void restoreMove(int move, boolean undo) {
+    if (moveEmptyCell(Direction.of(Move.dx(move), Move.dy(move))) == null) {
+      return;
+    }
+    if (undo) {
+      puzzlePath.undo();
+    } else {
+      puzzlePath.add(move);
+    }
+  }
+
+  /**
+   * @return the shortest path to the solved board, or null if the search took longer than the
+   * budget
+   */
+  private int[] solveOptimal(int cols, int rows, int[] tiles) {
+    if (ExactDistanceTable.isSupported(cols, rows)) {
+      return getExactTable(cols, rows).solve(tiles);
+    }
 
-            // finish
-            puzzlePath.clear();
-            handler.post(new Runnable() {
-              @Override
-              public void run() {
-                setEnabled(true);
+    final Solver solver = getOptimalSolver(cols, rows);
+    solver.clearCancel();
+    Runnable timeout = new Runnable() {
+      @Override
+      public void run() {
+        solver.cancel();
+      }
+    };
+    handler.postDelayed(timeout, OPTIMAL_RESTORE_BUDGET);
+    try {
+      return solver.solve(tiles);
+    } finally {
+      handler.removeCallbacks(timeout);
+    }
+  }
+
+  private IdaStarSolver getOptimalSolver(int cols, int rows) {
+    if (optimalSolver == null || optimalSolver.getColCount() != cols || optimalSolver.getRowCount() != rows) {
+      optimalSolver = new IdaStarSolver(cols, rows, createHeuristic(cols, rows));
+    }
+    return optimalSolver;
+  }
+
+  private ReductionSolver getReductionSolver(int cols, int rows) {
+    if (reductionSolver == null || reductionSolver.getColCount() != cols || reductionSolver.getRowCount() != rows) {
+      reductionSolver = new ReductionSolver(cols, rows);
+    }
+    return reductionSolver;
+  }
+
+  /**
+   * make one move of an optimal solution, only for boards small enough for an exact table
+   */
+  public void hint() {
+    if (!isEnabled() || board == null || !ExactDistanceTable.isSupported(colCount, rowCount)) {
+      return;
+    }
+
+    final int[] tiles = new int[board.getSize()];
+    board.copyTiles(tiles);
+    final int cols = colCount, rows = rowCount;
+
+    executorService.execute(new Runnable() {
+      @Override
+      public void run() {
+        ExactDistanceTable table = getExactTable(cols, rows);
+        final int move = table.getNextMove(tiles);
+        if (move == Move.NONE) {
+          return;
+        }
+
+        handler.post(new Runnable() {
+          @Override
+          public void run() {
+            // the board may have changed in between
+            if (isEnabled() && board != null && board.hasTiles(tiles)) {
+              if (moveEmptyCell(Direction.of(Move.dx(move), Move.dy(move))) != null) {
+                puzzlePath.add(move);
               }
-            });
+            }
           }
         });
+      }
+    });
+  }
+
+  /**
+   * load the exact table from the assets, or build it if it isn't shipped, on the worker thread
+   */
+  private ExactDistanceTable getExactTable(int cols, int rows) {
+    if (exactTable != null && exactTable.getColCount() == cols && exactTable.getRowCount() == rows) {
+      return exactTable;
+    }
+
+    ExactDistanceTable table = null;
+    try {
+      InputStream in = getContext().getAssets().open(ExactDistanceTable.getAssetName(cols, rows));
+      try {
+        table = ExactDistanceTable.read(in);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      Log.d(TAG, "no exact table asset for %dx%d, building it", cols, rows);
+    }
+
+    if (table == null || table.getColCount() != cols || table.getRowCount() != rows) {
+      table = ExactDistanceTable.build(cols, rows);
+    }
+    exactTable = table;
+    return table;
+  }
+
+  /**
+   * @param restoreMode {@link #RESTORE_MODE_HISTORY} undoes every recorded move,
+   * {@link #RESTORE_MODE_OPTIMAL} plays a shortest solution instead, if one is found within a
+   * couple of seconds
+   */
+  public void setRestoreMode(int restoreMode) {
+    this.restoreMode = restoreMode;
+  }
+
+  /**
+   * take back the last move
+   */
+  public void undo() {
+    if (!isEnabled() || board == null) {
+      return;
+    }
+    if (puzzlePath.length() == 0) {
+      return;
+    }
+    // move first, notifyMoved takes the steps before the move from the journal
+    int move = Move.inverse(puzzlePath.getLast());
+    if (moveEmptyCell(Direction.of(Move.dx(move), Move.dy(move))) != null) {
+      puzzlePath.undo();
+    }
+  }
+
+  /**
+   * make the last undone move again
+   */
+  public void redo() {
+    if (!isEnabled() || board == null) {
+      return;
+    }
+    if (puzzlePath.getRedoCount() == 0) {
+      return;
+    }
+    int move = puzzlePath.get(puzzlePath.length());
+    if (moveEmptyCell(Direction.of(Move.dx(move), Move.dy(move))) != null) {
+      puzzlePath.redo();
+    }
   }
 
   public int getPuzzleSteps() {
-    return puzzlePath.size();
+    return puzzlePath.length();
   }
 
 
   /**
-   * a class used to describe the movement direction
+   * a class used to describe the movement direction, there are only the five constants so they
+   * can be compared by identity
    * x: -1 left, +1 right
    * y: -1 top, +1 bottom
    */
-  public class Direction {
-    public int x, y;
+  public static final class Direction {
+    public static final Direction NONE = new Direction(0, 0);
+    public static final Direction UP = new Direction(0, -1);
+    public static final Direction DOWN = new Direction(0, 1);
+    public static final Direction LEFT = new Direction(-1, 0);
+    public static final Direction RIGHT = new Direction(1, 0);
+
+    public final int x, y;
+
+    private Direction(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+
+    /**
+     * @return the direction of the signs of x and y
+     * @throws IllegalArgumentException for a diagonal
+     */
+    public static Direction of(int x, int y) {
+      x = Utils.signum(x);
+      y = Utils.signum(y);
+      if (x != 0 && y != 0) {
+        throw new IllegalArgumentException("diagonal direction " + x + ", " + y);
+      }
+      return x < 0 ? LEFT : x > 0 ? RIGHT : y < 0 ? UP : y > 0 ? DOWN : NONE;
+    }
+
+    public Direction negate() {
+      return of(-x, -y);
+    }
+  }
+
+  private static class SolutionMoves implements MoveIterator {
+    private final int[] solution;
+    private int index;
+
+    SolutionMoves(int[] solution) {
+      this.solution = solution;
+    }
 
-    public Direction(int x, int y) {
-      this.x = Utils.signum(x);
-      this.y = Utils.signum(y);
+    @Override
+    public boolean hasNext() {
+      return index < solution.length;
     }
 
     @Override
-    public boolean equals(Object o) {
-      if (this == o)
-        return true;
-
-      if (o instanceof Direction) {
-        Direction d = (Direction) o;
-        return this.x == d.x && this.y == d.y;
-      } else {
-        return false;
+    public int next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
       }
+      return solution[index++];
     }
   }
 
   public interface OnMovedListener {
-    void onMoved();
+    /**
+     * called at most once a frame, for all the moves since the last call
+     *
+     * @param count the number of tiles moved, 0 if the board was replaced at once
+     * @param fromSteps the number of steps before the first of the moves
+     * @param toSteps the number of steps after the last of them
+     */
+    void onMoved(int count, int fromSteps, int toSteps);
   }
 
   public void setOnMovedListener(OnMovedListener onMovedListener) {
@@ -570,5 +995,13 @@ public class BoardView extends ViewGroup implements View.OnTouchListener {
   }
 
   private OnMovedListener onMovedListener;
+  private int pendingMoveCount, pendingFromSteps;
+  private boolean moveDispatchScheduled;
+  private final Choreographer.FrameCallback moveDispatcher = new Choreographer.FrameCallback() {
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      dispatchMoved();
+    }
+  };
 
 }
@@ -0,0 +1,312 @@
+package com.log4think.slidingpuzzle.view;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.log4think.slidingpuzzle.image.ImageCache;
+import com.log4think.slidingpuzzle.image.TileAtlas;
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+import com.log4think.slidingpuzzle.utils.Log;
+
+/**
+ * Draws the whole board in one view, every tile straight from the source image with
+ * {@link Canvas#drawBitmap(Bitmap, Rect, Rect, Paint)}, instead of one child view per tile.
+ *
+ * A slide only invalidates the cells it passes, and onDraw only walks the cells inside the
+ * clip, so the cost of a move doesn't grow with the board.
+ *
+ * The picture is {@link ImageCache#retain(Bitmap) retained} as long as the view draws it, like in
+ * {@link BoardView}, so the bitmap pool can't hand it to another decode meanwhile. The activities
+ * still use BoardView, this view has no dragging, history or solvers yet.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class CanvasBoardView extends View {
+  private static final String TAG = Log.tag(CanvasBoardView.class);
+  private static final int SLIDE_DURATION = 100;
+
+  private int cellWidth, cellHeight;
+  private int cellPadding;
+  private int colCount, rowCount;
+
+  private Board board;
+  private TileAtlas atlas;
+
+  private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private final Rect src = new Rect();
+  private final Rect dst = new Rect();
+  private final Rect clip = new Rect();
+  private final Rect dirty = new Rect();
+
+  // the tiles of the running slide ended up in slideCount cells from slideStart on, they are
+  // drawn slideOffset cells back towards where they came from
+  private int slideStart, slideCount;
+  private int slideMove = Move.NONE;
+  private float slideOffset;
+  private ValueAnimator slideAnimator;
+
+  private BoardView.OnMovedListener onMovedListener;
+  // tiles moved since the board was set
+  private int steps;
+
+  public CanvasBoardView(Context context) {
+    super(context);
+    init();
+  }
+
+  public CanvasBoardView(Context context, AttributeSet attrs) {
+    this(context, attrs, 0);
+  }
+
+  public CanvasBoardView(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    init();
+  }
+
+  private void init() {
+    slideAnimator = ValueAnimator.ofFloat(1, 0);
+    slideAnimator.setDuration(SLIDE_DURATION);
+    slideAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+      @Override
+      public void onAnimationUpdate(ValueAnimator animation) {
+        slideOffset = (Float) animation.getAnimatedValue();
+        invalidate(dirty);
+      }
+    });
+  }
+
+  public void setBoardSize(int colCount, int rowCount) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    board = new Board(colCount, rowCount);
+    steps = 0;
+    if (atlas != null) {
+      atlas = cut(atlas);
+    }
+    requestLayout();
+    invalidate();
+  }
+
+  /**
+   * @param image the whole picture, the tiles are cut from it while drawing. It is retained until
+   * the view draws another one or is detached.
+   */
+  public void setImage(Bitmap image) {
+    ImageCache.getInstance().retain(image);
+    setAtlas(new TileAtlas(image, Math.max(colCount, 1), Math.max(rowCount, 1)));
+  }
+
+  /**
+   * @param atlas its picture is cut to the board size, the atlas itself is left as it is. The
+   * picture has to be retained for the view, as {@link com.log4think.slidingpuzzle.image.AtlasLoader}
+   * hands it over; the view releases it.
+   */
+  public void setAtlas(TileAtlas atlas) {
+    // the old picture was retained for the view as well, even if it is the same one
+    if (this.atlas != null) {
+      ImageCache.getInstance().release(this.atlas.getBitmap());
+    }
+    this.atlas = cut(atlas);
+    invalidate();
+  }
+
+  /**
+   * hand the picture back, it may be pooled and decoded over, so it isn't drawn any more
+   */
+  private void releaseAtlas() {
+    if (atlas != null) {
+      ImageCache.getInstance().release(atlas.getBitmap());
+      atlas = null;
+      invalidate();
+    }
+  }
+
+  /**
+   * @return the atlas, or another one of its picture if it is cut for another board size
+   */
+  private TileAtlas cut(TileAtlas atlas) {
+    if (colCount <= 0 || rowCount <= 0 || (atlas.getColCount() == colCount && atlas.getRowCount() == rowCount)) {
+      return atlas;
+    }
+    return new TileAtlas(atlas.getBitmap(), colCount, rowCount);
+  }
+
+  public void setCellPadding(int cellPadding) {
+    this.cellPadding = cellPadding;
+    invalidate();
+  }
+
+  public Board getBoard() {
+    return board;
+  }
+
+  /**
+   * jump to the board at once
+   */
+  public void setTiles(int[] tiles) {
+    stopSlide();
+    board.setTiles(tiles);
+    int fromSteps = steps;
+    steps = 0;
+    invalidate();
+
+    if (onMovedListener != null) {
+      onMovedListener.onMoved(0, fromSteps, steps);
+    }
+  }
+
+  public void setOnMovedListener(BoardView.OnMovedListener onMovedListener) {
+    this.onMovedListener = onMovedListener;
+  }
+
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    int rw = MeasureSpec.getSize(widthMeasureSpec);
+    int rh = MeasureSpec.getSize(heightMeasureSpec);
+
+    if (colCount * rowCount == 0) {
+      super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+      return;
+    }
+
+    cellWidth = (rw - getPaddingLeft() - getPaddingRight()) / colCount;
+    cellHeight = (rh - getPaddingTop() - getPaddingBottom()) / rowCount;
+
+    // make the board to square
+    cellWidth = Math.min(cellWidth, cellHeight);
+    cellHeight = cellWidth;
+
+    int vw = cellWidth * colCount + getPaddingLeft() + getPaddingRight();
+    int vh = cellHeight * rowCount + getPaddingTop() + getPaddingBottom();
+    setMeasuredDimension(vw, vh);
+  }
+
+  @Override
+  protected void onDraw(Canvas canvas) {
+    if (board == null || atlas == null || cellWidth == 0 || cellHeight == 0) {
+      return;
+    }
+
+    // only the cells inside the clip, which is just the dirty region during a slide
+    canvas.getClipBounds(clip);
+    int firstCol = Math.max((clip.left - getPaddingLeft()) / cellWidth, 0);
+    int lastCol = Math.min((clip.right - 1 - getPaddingLeft()) / cellWidth, colCount - 1);
+    int firstRow = Math.max((clip.top - getPaddingTop()) / cellHeight, 0);
+    int lastRow = Math.min((clip.bottom - 1 - getPaddingTop()) / cellHeight, rowCount - 1);
+
+    int emptyTile = board.getEmptyTile();
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = firstCol; col <= lastCol; col++) {
+        int tile = board.getTile(col, row);
+        if (tile == emptyTile) {
+          continue;
+        }
+
+        int x = getPaddingLeft() + col * cellWidth;
+        int y = getPaddingTop() + row * cellHeight;
+        if (isSliding(row * colCount + col)) {
+          x += Math.round(slideOffset * Move.dx(slideMove) * cellWidth);
+          y += Math.round(slideOffset * Move.dy(slideMove) * cellHeight);
+        }
+        dst.set(x + cellPadding, y + cellPadding, x + cellWidth - cellPadding, y + cellHeight - cellPadding);
+
+        atlas.getSourceRect(tile, src);
+        canvas.drawBitmap(atlas.getBitmap(), src, dst, paint);
+      }
+    }
+  }
+
+  private boolean isSliding(int position) {
+    if (slideMove == Move.NONE) {
+      return false;
+    }
+    int step = Move.dy(slideMove) * colCount + Move.dx(slideMove);
+    int index = (position - slideStart) / step;
+    return (position - slideStart) % step == 0 && index >= 0 && index < slideCount;
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent event) {
+    if (!isEnabled() || board == null || cellWidth == 0 || cellHeight == 0) {
+      return false;
+    }
+
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN:
+        return true;
+
+      case MotionEvent.ACTION_UP: {
+        // the padding and whatever is right or below the board are no cell, the division alone
+        // would round a negative offset to the first one
+        float x = event.getX() - getPaddingLeft();
+        float y = event.getY() - getPaddingTop();
+        if (x >= 0 && y >= 0 && x < colCount * cellWidth && y < rowCount * cellHeight) {
+          slideTo((int) x / cellWidth, (int) y / cellHeight);
+        }
+        return true;
+      }
+    }
+    return super.onTouchEvent(event);
+  }
+
+  /**
+   * slide every tile between the cell and the empty cell towards the empty cell
+   *
+   * @return whether anything moved
+   */
+  public boolean slideTo(int col, int row) {
+    int emptyCol = board.getEmptyCol(), emptyRow = board.getEmptyRow();
+    if (board.getTile(col, row) < 0 || (col != emptyCol && row != emptyRow) || (col == emptyCol && row == emptyRow)) {
+      return false;
+    }
+
+    stopSlide();
+
+    int move = Move.of(col - emptyCol, row - emptyRow);
+    int count = Math.abs(col - emptyCol) + Math.abs(row - emptyRow);
+    for (int i = 0; i < count; i++) {
+      board.move(move);
+    }
+
+    // the tiles now fill the cells from the old empty cell on, each came from one cell further
+    slideStart = emptyRow * colCount + emptyCol;
+    slideCount = count;
+    slideMove = move;
+    slideOffset = 1;
+    dirty.set(getPaddingLeft() + Math.min(col, emptyCol) * cellWidth,
+        getPaddingTop() + Math.min(row, emptyRow) * cellHeight,
+        getPaddingLeft() + (Math.max(col, emptyCol) + 1) * cellWidth,
+        getPaddingTop() + (Math.max(row, emptyRow) + 1) * cellHeight);
+    slideAnimator.start();
+
+    // one call for the whole slide
+    int fromSteps = steps;
+    steps += count;
+    if (onMovedListener != null) {
+      onMovedListener.onMoved(count, fromSteps, steps);
+    }
+    return true;
+  }
+
+  private void stopSlide() {
+    if (slideAnimator.isRunning()) {
+      slideAnimator.end();
+    }
+    slideMove = Move.NONE;
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    stopSlide();
+    releaseAtlas();
+  }
+}
@@ -1,12 +1,13 @@
 package com.log4think.slidingpuzzle.view;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.graphics.Point;
 import android.graphics.PointF;
+import android.graphics.drawable.ColorDrawable;
 import android.support.v4.widget.ViewDragHelper;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
@@ -14,6 +15,13 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.log4think.slidingpuzzle.R;
+import com.log4think.slidingpuzzle.image.AtlasLoader;
+import com.log4think.slidingpuzzle.image.ImageCache;
+import com.log4think.slidingpuzzle.image.ImageSource;
+import com.log4think.slidingpuzzle.image.TileAtlas;
+import com.log4think.slidingpuzzle.image.TileDrawable;
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
 import com.log4think.slidingpuzzle.utils.Log;
 import com.log4think.slidingpuzzle.utils.Utils;
 
@@ -27,7 +35,11 @@ public class PuzzleView extends ViewGroup {
   private int cellPadding;
   private int colCount, rowCount;
 
+  private Board board;
   private List<CellView> cellViews;
+  private TileAtlas atlas;
+  private AtlasLoader.Request atlasRequest;
+  private int placeholderColor;
 
   private ViewDragHelper dragHelper;
   private PointF lastDragPoint;
@@ -57,6 +69,7 @@ public class PuzzleView extends ViewGroup {
     cellViews = new ArrayList<CellView>();
     capturedViews = new ArrayList<CellView>();
     dragHelper = ViewDragHelper.create(this, 1.0f, dragHelperCallback);
+    placeholderColor = getResources().getColor(R.color.colorPrimaryLight);
   }
 
   public void setBoardSize(int colCount, int rowCount) {
@@ -66,14 +79,12 @@ public class PuzzleView extends ViewGroup {
   }
 
   private void reset() {
-    // load image
-    List<Bitmap> slices = Utils.sliceBitmap(getContext(), R.drawable.globe, colCount, rowCount);
-
-    // generate sliced cell views
+    // generate cell views, indexed by tile, showing placeholders until the picture is there
+    board = new Board(colCount, rowCount);
     cellViews.clear();
-    for (int i = 0; i < slices.size(); i++) {
+    for (int i = 0; i < board.getSize(); i++) {
       CellView view = new CellView(getContext());
-      view.setImageBitmap(slices.get(i));
+      view.setImageDrawable(new ColorDrawable(placeholderColor));
       view.setIndex(i);
       view.setCoord(i % colCount, i / colCount);
       cellViews.add(view);
@@ -84,7 +95,6 @@ public class PuzzleView extends ViewGroup {
       emptyView = cellViews.get(cellViews.size() - 1);
       emptyView.setEmpty(true);
     }
-    slices.clear();
 
     // shuffle the cells
     // Collections.shuffle(cellViews);
@@ -98,6 +108,90 @@ public class PuzzleView extends ViewGroup {
     for (View cell : cellViews) {
       addView(cell);
     }
+
+    // load image once, other board sizes only re-cut it
+    if (atlas != null) {
+      setAtlas(new TileAtlas(atlas.getBitmap(), colCount, rowCount));
+    } else {
+      loadAtlas();
+    }
+  }
+
+  private void loadAtlas() {
+    if (atlasRequest != null) {
+      atlasRequest.cancel();
+    }
+
+    Point size = getBoardPixelSize();
+    atlasRequest = AtlasLoader.getInstance(getContext()).load(ImageSource.of(getResources(), R.drawable.globe), colCount,
+        rowCount, size.x, size.y, new AtlasLoader.Callback() {
+          @Override
+          public void onLoaded(TileAtlas atlas) {
+            atlasRequest = null;
+            setAtlas(atlas);
+          }
+
+          @Override
+          public void onFailed(IOException e) {
+            // the cells keep their colour placeholders, the game still works without a picture
+            atlasRequest = null;
+            Log.e(TAG, "can't load the picture", e);
+          }
+        });
+  }
+
+  /**
+   * hand the picture back, it may be pooled and decoded over, so the cells go back to
+   * placeholders first
+   */
+  private void releaseAtlas() {
+    if (atlas != null) {
+      for (CellView view : cellViews) {
+        view.setImageDrawable(new ColorDrawable(placeholderColor));
+      }
+      ImageCache.getInstance().release(atlas.getBitmap());
+      atlas = null;
+    }
+  }
+
+  private void setAtlas(TileAtlas atlas) {
+    if (this.atlas != null && this.atlas.getBitmap() != atlas.getBitmap()) {
+      ImageCache.getInstance().release(this.atlas.getBitmap());
+    }
+    this.atlas = atlas;
+    for (CellView view : cellViews) {
+      view.setImageDrawable(new TileDrawable(atlas, view.getIndex()));
+    }
+  }
+
+  /**
+   * the size of the board on screen, before the first measure as large as the short side of the
+   * screen allows
+   */
+  private Point getBoardPixelSize() {
+    if (childWidth == 0) {
+      return AtlasLoader.getScreenFitSize(getResources(), colCount, rowCount);
+    }
+    return new Point(childWidth * colCount, childHeight * rowCount);
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    // the picture was released when the view was detached
+    if (board != null && atlas == null && atlasRequest == null) {
+      loadAtlas();
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    if (atlasRequest != null) {
+      atlasRequest.cancel();
+      atlasRequest = null;
+    }
+    releaseAtlas();
   }
 
   @Override
@@ -185,21 +279,15 @@ public class PuzzleView extends ViewGroup {
   }
 
   public CellView getEmptyView() {
-    for (CellView view : cellViews) {
-      if (view.isEmpty()) {
-        return view;
-      }
+    if (board == null) {
+      return null;
     }
-    return null;
+    return cellViews.get(board.getEmptyTile());
   }
 
   public CellView getView(int col, int row) {
-    for (CellView view : cellViews) {
-      if (view.getCol() == col && view.getRow() == row) {
-        return view;
-      }
-    }
-    return null;
+    int tile = board == null ? -1 : board.getTile(col, row);
+    return tile < 0 ? null : cellViews.get(tile);
   }
 
   /**
@@ -262,9 +350,16 @@ public class PuzzleView extends ViewGroup {
   }
 
   public void moveCells(List<CellView> cellViews, Direction direction) {
+    // the empty cell walks against the cells, one step per cell
+    int move = Move.of(-direction.x, -direction.y);
+    for (int i = 0; i < cellViews.size(); i++) {
+      board.move(move);
+    }
+
     for (CellView view : cellViews) {
-      view.setCoord(view.getCol() + direction.x, view.getRow() + direction.y);
+      view.setCoord(board.getCol(view.getIndex()), board.getRow(view.getIndex()));
     }
+    emptyView.setCoord(board.getEmptyCol(), board.getEmptyRow());
   }
 
   public void setCellPadding(int cellPadding) {
@@ -305,15 +400,10 @@ public class PuzzleView extends ViewGroup {
 
     @Override
     public void onViewReleased(View releasedChild, float xvel, float yvel) {
-      CellView view = (CellView) capturedViews.get(0);
-
       if (getMovedDelta() > childWidth / 2 || getMovedDelta() > childHeight / 2 // moved half way
           || getMovedDelta() < 5 // click
       ) {
-        // move empty space to touched cell
-        emptyView.setCoord(view.getCol(), view.getRow());
-
-        // move all other captured cells to new place
+        // move all captured cells to new place, the empty space takes the touched cell
         moveCells(capturedViews, direction);
 
         Log.d(TAG, "onViewReleased: half way or click");
@@ -0,0 +1,109 @@
+package com.log4think.slidingpuzzle.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class BoardTest {
+
+  @Test
+  public void startsSolved() {
+    Board board = new Board(4, 3);
+    assertTrue(board.isSolved());
+    assertEquals(12, board.getSize());
+    assertEquals(11, board.getEmptyTile());
+    assertEquals(11, board.getEmptyPosition());
+    assertEquals(3, board.getEmptyCol());
+    assertEquals(2, board.getEmptyRow());
+  }
+
+  @Test
+  public void looksUpTilesBothWays() {
+    Board board = new Board(3, 3);
+    board.setTiles(new int[] {1, 2, 0, 3, 8, 5, 6, 7, 4});
+
+    assertEquals(0, board.getTileAt(2));
+    assertEquals(2, board.getPosition(0));
+    assertEquals(2, board.getCol(0));
+    assertEquals(0, board.getRow(0));
+    assertEquals(4, board.getTile(2, 2));
+    assertEquals(-1, board.getTile(3, 0));
+    assertEquals(-1, board.getTile(0, -1));
+    assertEquals(4, board.getEmptyPosition());
+  }
+
+  @Test
+  public void movesTheEmptyCell() {
+    Board board = new Board(3, 3);
+    assertFalse(board.canMove(Move.DOWN));
+    assertFalse(board.canMove(Move.RIGHT));
+    assertEquals(-1, board.move(Move.RIGHT));
+
+    assertEquals(5, board.move(Move.UP));
+    assertEquals(4, board.move(Move.LEFT));
+    assertArrayEquals(new int[] {0, 1, 2, 3, 8, 4, 6, 7, 5}, copy(board));
+    assertEquals(4, board.getEmptyPosition());
+    assertEquals(5, board.getPosition(4));
+
+    board.move(Move.RIGHT);
+    board.move(Move.DOWN);
+    assertTrue(board.isSolved());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsTilesThatAreNoPermutation() {
+    new Board(2, 2).setTiles(new int[] {0, 1, 1, 3});
+  }
+
+  @Test
+  public void copiesAreIndependent() {
+    Board board = new Board(3, 3);
+    Board copy = new Board(board);
+    copy.move(Move.UP);
+    assertTrue(board.isSolved());
+    assertFalse(copy.isSolved());
+  }
+
+  @Test
+  public void solvableByParity() {
+    assertTrue(Board.isSolvable(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8}, 3));
+    // one move away
+    assertTrue(Board.isSolvable(new int[] {0, 1, 2, 3, 4, 8, 6, 7, 5}, 3));
+    // two tiles swapped
+    assertFalse(Board.isSolvable(new int[] {1, 0, 2, 3, 4, 5, 6, 7, 8}, 3));
+    assertFalse(Board.isSolvable(new int[] {0, 1, 2, 3, 4, 5, 6, 8, 9, 10, 11, 12, 13, 14, 7, 15}, 4));
+    // two swaps make an even permutation
+    assertTrue(Board.isSolvable(new int[] {1, 0, 3, 2, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15}, 4));
+    // a move away from two swapped tiles
+    assertFalse(Board.isSolvable(new int[] {1, 0, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 15, 14}, 4));
+  }
+
+  @Test
+  public void thinBoardsNeedTheTilesInOrder() {
+    // a single row, the empty cell anywhere
+    assertTrue(Board.isSolvable(new int[] {0, 1, 2, 3}, 4));
+    assertTrue(Board.isSolvable(new int[] {3, 0, 1, 2}, 4));
+    assertTrue(Board.isSolvable(new int[] {0, 3, 1, 2}, 4));
+    // the parity matches, but the tiles can't pass each other
+    assertFalse(Board.isSolvable(new int[] {1, 0, 3, 2}, 4));
+    assertFalse(Board.isSolvable(new int[] {2, 1, 0, 3}, 4));
+
+    // a single column
+    assertTrue(Board.isSolvable(new int[] {0, 2, 1}, 1));
+    assertFalse(Board.isSolvable(new int[] {1, 2, 0}, 1));
+
+    assertTrue(Board.isSolvable(new int[] {0}, 1));
+  }
+
+  private static int[] copy(Board board) {
+    int[] tiles = new int[board.getSize()];
+    board.copyTiles(tiles);
+    return tiles;
+  }
+}
@@ -0,0 +1,79 @@
+package com.log4think.slidingpuzzle.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class MoveJournalTest {
+
+  @Test
+  public void undoesAndRedoes() {
+    MoveJournal journal = new MoveJournal();
+    journal.add(Move.UP);
+    journal.add(Move.LEFT);
+    assertEquals(2, journal.length());
+    assertEquals(Move.LEFT, journal.getLast());
+
+    assertEquals(Move.RIGHT, journal.undo());
+    assertEquals(Move.DOWN, journal.undo());
+    assertEquals(Move.NONE, journal.undo());
+    assertEquals(0, journal.length());
+    assertEquals(2, journal.getRedoCount());
+
+    assertEquals(Move.UP, journal.redo());
+    assertEquals(Move.LEFT, journal.redo());
+    assertEquals(Move.NONE, journal.redo());
+    assertEquals(2, journal.length());
+  }
+
+  @Test
+  public void inverseMoveCancelsTheLastOne() {
+    MoveJournal journal = new MoveJournal();
+    journal.add(Move.UP);
+    journal.add(Move.LEFT);
+    journal.add(Move.RIGHT);
+    assertEquals(1, journal.length());
+    assertEquals(Move.UP, journal.getLast());
+    // the cancelled move can still be redone
+    assertEquals(1, journal.getRedoCount());
+  }
+
+  @Test
+  public void redoMoveKeepsTheRedoPart() {
+    MoveJournal journal = new MoveJournal();
+    journal.add(Move.UP);
+    journal.add(Move.LEFT);
+    journal.undo();
+    journal.undo();
+
+    journal.add(Move.UP);
+    assertEquals(1, journal.length());
+    assertEquals(1, journal.getRedoCount());
+
+    // any other move drops it
+    journal.add(Move.RIGHT);
+    assertEquals(2, journal.length());
+    assertEquals(0, journal.getRedoCount());
+    assertEquals(Move.RIGHT, journal.getLast());
+  }
+
+  @Test
+  public void growsPastItsCapacity() {
+    MoveJournal journal = new MoveJournal(4);
+    for (int i = 0; i < 1000; i++) {
+      journal.add(i % 2 == 0 ? Move.UP : Move.LEFT);
+    }
+    assertEquals(1000, journal.length());
+    for (int i = 999; i >= 0; i--) {
+      assertEquals(Move.inverse(i % 2 == 0 ? Move.UP : Move.LEFT), journal.undo());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNone() {
+    new MoveJournal().add(Move.NONE);
+  }
+}
@@ -0,0 +1,38 @@
+package com.log4think.slidingpuzzle.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class MoveTest {
+
+  @Test
+  public void inverseIsTheOppositeDirection() {
+    assertEquals(Move.DOWN, Move.inverse(Move.UP));
+    assertEquals(Move.UP, Move.inverse(Move.DOWN));
+    assertEquals(Move.RIGHT, Move.inverse(Move.LEFT));
+    assertEquals(Move.LEFT, Move.inverse(Move.RIGHT));
+  }
+
+  @Test
+  public void directionsRoundTrip() {
+    for (int move = Move.UP; move <= Move.RIGHT; move++) {
+      assertEquals(move, Move.of(Move.dx(move), Move.dy(move)));
+      assertEquals(0, Move.dx(move) + Move.dx(Move.inverse(move)));
+      assertEquals(0, Move.dy(move) + Move.dy(Move.inverse(move)));
+    }
+    assertEquals(-1, Move.dy(Move.UP));
+    assertEquals(1, Move.dx(Move.RIGHT));
+  }
+
+  @Test
+  public void ofTakesTheSignOnly() {
+    assertEquals(Move.LEFT, Move.of(-3, 0));
+    assertEquals(Move.DOWN, Move.of(0, 5));
+    assertEquals(Move.NONE, Move.of(0, 0));
+    assertEquals(Move.NONE, Move.of(1, 1));
+  }
+}
@@ -0,0 +1,90 @@
+package com.log4think.slidingpuzzle.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ScramblerTest {
+
+  @Test
+  public void boardsAreSolvable() {
+    Random random = new Random(1);
+    int[][] sizes = {{2, 2}, {3, 3}, {4, 4}, {3, 5}, {1, 5}, {6, 1}, {1, 1}};
+    for (int[] size : sizes) {
+      for (int i = 0; i < 200; i++) {
+        int[] tiles = Scrambler.scramble(size[0], size[1], random);
+        assertTrue(size[0] + "x" + size[1], Board.isSolvable(tiles, size[0]));
+      }
+    }
+  }
+
+  @Test
+  public void boardsAreUniform() {
+    // a 2x2 board has 12 solvable states, each should come up about as often
+    Random random = new Random(2);
+    Map<String, Integer> counts = new HashMap<String, Integer>();
+    int[] tiles = new int[4];
+    for (int i = 0; i < 12000; i++) {
+      Scrambler.scramble(tiles, 2, random);
+      String key = Arrays.toString(tiles);
+      Integer count = counts.get(key);
+      counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    assertEquals(12, counts.size());
+    for (int count : counts.values()) {
+      assertTrue("count " + count, count > 850 && count < 1150);
+    }
+  }
+
+  @Test
+  public void singleRowOnlyMovesTheEmptyCell() {
+    Random random = new Random(3);
+    for (int i = 0; i < 100; i++) {
+      int[] tiles = Scrambler.scramble(7, 1, random);
+      int next = 0;
+      for (int tile : tiles) {
+        if (tile != 6) {
+          assertEquals(next++, tile);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void seedGivesTheSameBoardEverywhere() {
+    assertArrayEquals(new int[] {14, 9, 12, 10, 0, 2, 8, 6, 13, 4, 3, 11, 5, 7, 15, 1},
+        Scrambler.scramble(4, 4, 42L));
+    assertArrayEquals(new int[] {7, 0, 4, 5, 6, 3, 1, 2, 8}, Scrambler.scramble(3, 3, 7L));
+
+    int[] tiles = new int[16];
+    Scrambler.scramble(tiles, 4, 42L);
+    assertArrayEquals(Scrambler.scramble(4, 4, 42L), tiles);
+  }
+
+  @Test
+  public void encodesAndDecodes() {
+    Random random = new Random(4);
+    for (int size = 2; size <= 10; size++) {
+      int[] tiles = Scrambler.scramble(size, size, random);
+      int[] decoded = new int[tiles.length];
+      Scrambler.decode(Scrambler.encode(tiles), decoded);
+      assertArrayEquals(tiles, decoded);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsCodeOfAnotherSize() {
+    Scrambler.decode(Scrambler.encode(Scrambler.scramble(4, 4, 1L)), new int[9]);
+  }
+}
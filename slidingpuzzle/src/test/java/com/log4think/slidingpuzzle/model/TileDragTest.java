@@ -0,0 +1,114 @@
+package com.log4think.slidingpuzzle.model;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class TileDragTest {
+  private static final int CELL_SIZE = 100;
+  private static final int MOVE_EVENTS = 500;
+
+  private Board board;
+  private TileDrag drag;
+
+  @Before
+  public void setUp() {
+    board = new Board(4, 4);
+    drag = new TileDrag();
+    drag.setBoardSize(4, 4);
+    drag.setCellSize(CELL_SIZE, CELL_SIZE);
+  }
+
+  @Test
+  public void capturesTilesUpToTheEmptyCell() {
+    // the empty cell is at the bottom right, tile 12 is the first of the bottom row
+    assertTrue(drag.start(board, 12));
+    assertEquals(3, drag.getCount());
+    assertEquals(12, drag.getTile(0));
+    assertEquals(13, drag.getTile(1));
+    assertEquals(14, drag.getTile(2));
+    assertEquals(Move.RIGHT, drag.getMove());
+
+    assertTrue(drag.start(board, 7));
+    assertEquals(2, drag.getCount());
+    assertEquals(Move.DOWN, drag.getMove());
+
+    assertFalse(drag.start(board, 0));
+    assertEquals(0, drag.getCount());
+  }
+
+  @Test
+  public void followsThePointerWithinOneCell() {
+    drag.start(board, 14);
+    drag.anchor(0, 0);
+
+    assertTrue(drag.drag(30, 10));
+    assertEquals(30, drag.getOffsetX(), 0);
+    assertEquals(0, drag.getOffsetY(), 0);
+
+    // backwards past the cell and beyond the empty cell are both dropped
+    assertFalse(drag.drag(-10, 0));
+    assertEquals(30, drag.getOffsetX(), 0);
+    assertTrue(drag.drag(20, 0));
+    assertFalse(drag.drag(200, 0));
+    assertEquals(60, drag.getOffsetX(), 0);
+    assertTrue(drag.isCommitted());
+  }
+
+  @Test
+  public void tapCommitsAndShortDragSnapsBack() {
+    drag.start(board, 11);
+    drag.anchor(0, 0);
+    assertTrue(drag.isCommitted());
+
+    drag.drag(0, 20);
+    assertEquals(20, drag.getOffsetY(), 0);
+    assertFalse(drag.isCommitted());
+  }
+
+  @Test
+  public void moveEventsAllocateNothing() {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    // the fewest bytes of a few rounds, so class loading or a compilation in the first ones
+    // isn't counted
+    long allocated = Long.MAX_VALUE;
+    float offset = 0;
+    for (int round = 0; round < 20; round++) {
+      long before = threads.getThreadAllocatedBytes(thread);
+      offset += replayGesture();
+      allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - before);
+    }
+
+    assertEquals("bytes allocated by " + MOVE_EVENTS + " move events", 0, allocated);
+    assertTrue(offset != 0);
+  }
+
+  /**
+   * a drag back and forth along the bottom row, as a finger would send it
+   *
+   * @return the sum of the offsets, so nothing is optimized away
+   */
+  private float replayGesture() {
+    float sum = 0;
+    drag.start(board, 12);
+    drag.anchor(0, 0);
+    for (int i = 0; i < MOVE_EVENTS; i++) {
+      float x = (i % 80) < 40 ? (i % 40) * 2 : 80 - (i % 40) * 2;
+      drag.drag(x, i % 3);
+      sum += drag.getOffsetX() + drag.getOffsetY();
+    }
+    drag.isCommitted();
+    drag.release();
+    return sum;
+  }
+}
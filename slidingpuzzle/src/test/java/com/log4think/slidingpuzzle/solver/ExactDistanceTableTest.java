@@ -0,0 +1,107 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+import com.log4think.slidingpuzzle.model.Scrambler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ExactDistanceTableTest {
+  private static final ExactDistanceTable TABLE_3X3 = ExactDistanceTable.build(3, 3);
+
+  @Test
+  public void knowsTheStateSpace() {
+    assertHistogram(ExactDistanceTable.build(2, 2), 2, 2, 12, 6);
+    assertHistogram(TABLE_3X3, 3, 3, 181440, 31);
+    assertHistogram(ExactDistanceTable.build(2, 4), 2, 4, 20160, 36);
+  }
+
+  @Test
+  public void wrongParityIsUnreachable() {
+    int[] tiles = {1, 0, 2, 3, 4, 5, 6, 7, 8};
+    assertEquals(ExactDistanceTable.UNREACHABLE, TABLE_3X3.getDistance(tiles));
+    assertEquals(Move.NONE, TABLE_3X3.getNextMove(tiles));
+    assertEquals(Move.NONE, TABLE_3X3.getNextMove(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8}));
+  }
+
+  @Test
+  public void solvesDownhill() {
+    Random random = new Random(4);
+    for (int i = 0; i < 100; i++) {
+      int[] tiles = Scrambler.scramble(3, 3, random);
+      int[] copy = tiles.clone();
+      int[] solution = TABLE_3X3.solve(tiles);
+      assertArrayEquals(copy, tiles);
+      assertEquals(TABLE_3X3.getDistance(tiles), solution.length);
+
+      Board board = new Board(3, 3);
+      board.setTiles(tiles);
+      for (int move : solution) {
+        int[] before = new int[9];
+        board.copyTiles(before);
+        assertEquals(move, TABLE_3X3.getNextMove(before));
+        board.move(move);
+      }
+      assertTrue(board.isSolved());
+    }
+  }
+
+  @Test
+  public void readsWhatWasWritten() throws IOException {
+    ExactDistanceTable table = ExactDistanceTable.build(2, 3);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    table.write(out);
+
+    ExactDistanceTable read = ExactDistanceTable.read(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(2, read.getColCount());
+    assertEquals(3, read.getRowCount());
+    Random random = new Random(5);
+    for (int i = 0; i < 100; i++) {
+      int[] tiles = Scrambler.scramble(2, 3, random);
+      assertEquals(table.getDistance(tiles), read.getDistance(tiles));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws IOException {
+    ExactDistanceTable.read(new ByteArrayInputStream(new byte[64]));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsLargeBoards() {
+    ExactDistanceTable.build(3, 4);
+  }
+
+  /**
+   * walk every permutation and count the reachable ones and the largest distance
+   */
+  private static void assertHistogram(ExactDistanceTable table, int colCount, int rowCount, int reachable, int diameter) {
+    int size = colCount * rowCount;
+    PermutationRank ranking = new PermutationRank(size, size);
+    int[] tiles = new int[size];
+    int count = 0, max = 0;
+    for (long rank = 0; rank < ranking.getCount(); rank++) {
+      ranking.unrank(rank, tiles);
+      int distance = table.getDistance(tiles);
+      assertEquals(Board.isSolvable(tiles, colCount), distance != ExactDistanceTable.UNREACHABLE);
+      if (distance != ExactDistanceTable.UNREACHABLE) {
+        count++;
+        max = Math.max(max, distance);
+      }
+    }
+    assertEquals(reachable, count);
+    assertEquals(diameter, max);
+  }
+}
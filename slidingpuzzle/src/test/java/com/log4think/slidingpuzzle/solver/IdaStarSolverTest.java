@@ -0,0 +1,97 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Scrambler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class IdaStarSolverTest {
+  private static final ExactDistanceTable TABLE = ExactDistanceTable.build(3, 3);
+
+  @Test
+  public void solutionsAreOptimal() {
+    IdaStarSolver solver = new IdaStarSolver(3, 3);
+    Random random = new Random(3);
+    for (int i = 0; i < 100; i++) {
+      int[] tiles = Scrambler.scramble(3, 3, random);
+      int[] solution = solver.solve(tiles);
+      assertEquals(TABLE.getDistance(tiles), solution.length);
+      assertSolves(3, 3, tiles, solution);
+    }
+  }
+
+  @Test
+  public void solvedBoardNeedsNoMoves() {
+    assertEquals(0, new IdaStarSolver(4, 4).solve(new Board(4, 4)).length);
+  }
+
+  @Test
+  public void deadEndIsNoCancel() {
+    // the first move of the deepened search runs into the top of the column and can't go on
+    int[] tiles = {0, 4, 1, 2, 3};
+    int[] solution = new IdaStarSolver(1, 5, new HalfMisplacedHeuristic()).solve(tiles);
+    assertEquals(3, solution.length);
+    assertSolves(1, 5, tiles, solution);
+  }
+
+  @Test
+  public void cancelBeforeTheSolveStopsIt() {
+    IdaStarSolver solver = new IdaStarSolver(3, 3);
+    int[] tiles = Scrambler.scramble(3, 3, 5L);
+    solver.cancel();
+    assertNull(solver.solve(tiles));
+    assertNull(solver.solve(tiles));
+
+    solver.clearCancel();
+    assertEquals(TABLE.getDistance(tiles), solver.solve(tiles).length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnsolvableBoards() {
+    new IdaStarSolver(3, 3).solve(new int[] {1, 0, 2, 3, 4, 5, 6, 7, 8});
+  }
+
+  static void assertSolves(int colCount, int rowCount, int[] tiles, int[] solution) {
+    Board board = new Board(colCount, rowCount);
+    board.setTiles(tiles);
+    for (int move : solution) {
+      assertTrue(board.move(move) >= 0);
+    }
+    assertTrue(board.isSolved());
+  }
+
+  /**
+   * half the misplaced tiles, weak enough that the search has to deepen
+   */
+  private static class HalfMisplacedHeuristic implements Heuristic {
+    @Override
+    public int reset(int[] tiles) {
+      int misplaced = 0;
+      for (int i = 0; i < tiles.length - 1; i++) {
+        if (tiles[i] != i) {
+          misplaced++;
+        }
+      }
+      return (misplaced + 1) / 2;
+    }
+
+    @Override
+    public int update(int[] tiles, int tile, int from, int to) {
+      return reset(tiles);
+    }
+
+    @Override
+    public Heuristic copy() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternDatabaseFileTest {
+  private static final int[][] PARTITION_3X3 = {
+      {0, 1, 2, 3},
+      {4, 5, 6, 7},
+  };
+  // header position of the tiles of the second pattern: 5 ints, then 4 ints of tiles, an offset
+  // long and a length int of the first one, then the tile count
+  private static final int SECOND_TILES = 20 + 4 + 4 * 4 + 8 + 4 + 4;
+
+  private PatternDatabase[] databases;
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    databases = PatternPartitions.build(3, 3, PARTITION_3X3);
+    file = File.createTempFile("pdb", ".spdb");
+    file.deleteOnExit();
+    PatternDatabaseFile.write(file, databases);
+  }
+
+  @Test
+  public void mapsWhatWasWritten() throws IOException {
+    PatternDatabase[] mapped = PatternDatabaseFile.mapVerified(file);
+    assertEquals(databases.length, mapped.length);
+    for (int p = 0; p < mapped.length; p++) {
+      assertEquals(3, mapped[p].getColCount());
+      assertEquals(3, mapped[p].getRowCount());
+      assertArrayEquals(databases[p].getTiles(), mapped[p].getTiles());
+      for (int rank = 0; rank < databases[p].getEntryCount(); rank++) {
+        assertEquals(databases[p].getExtra(rank), mapped[p].getExtra(rank));
+      }
+    }
+    assertTrue(PatternDatabaseFile.verify(file));
+  }
+
+  @Test
+  public void mapsRegionOfALargerFile() throws IOException {
+    // like an asset inside the apk
+    File container = File.createTempFile("apk", ".bin");
+    container.deleteOnExit();
+    byte[] content = readAll(file);
+    FileOutputStream out = new FileOutputStream(container);
+    try {
+      out.write(new byte[123]);
+      out.write(content);
+      out.write(new byte[45]);
+    } finally {
+      out.close();
+    }
+
+    FileInputStream in = new FileInputStream(container);
+    try {
+      PatternDatabase[] mapped = PatternDatabaseFile.mapVerified(in.getChannel(), 123, content.length);
+      assertEquals(databases[1].getExtra(100), mapped[1].getExtra(100));
+    } finally {
+      in.close();
+    }
+  }
+
+  @Test
+  public void rejectsCorruptedEntries() throws IOException {
+    flipByte(file.length() - 10);
+    assertFalse(PatternDatabaseFile.verify(file));
+    assertRejected();
+  }
+
+  @Test
+  public void rejectsCorruptedHeader() throws IOException {
+    // still two disjoint patterns covering every tile, but the tables belong to other tiles
+    swapInts(SECOND_TILES, SECOND_TILES + 4);
+    assertFalse(PatternDatabaseFile.verify(file));
+    assertRejected();
+  }
+
+  @Test
+  public void rejectsOverlappingPatterns() throws IOException {
+    PatternDatabaseFile.write(file, PatternPartitions.build(3, 3, new int[][] {{0, 1, 2, 3}, {3, 4, 5, 6, 7}}));
+    assertRejected();
+  }
+
+  @Test
+  public void rejectsPatternsMissingATile() throws IOException {
+    PatternDatabaseFile.write(file, PatternPartitions.build(3, 3, new int[][] {{0, 1, 2, 3}, {4, 5, 6}}));
+    assertRejected();
+  }
+
+  @Test
+  public void rejectsTruncatedFile() throws IOException {
+    RandomAccessFile output = new RandomAccessFile(file, "rw");
+    try {
+      output.setLength(file.length() - 1);
+    } finally {
+      output.close();
+    }
+    assertRejected();
+  }
+
+  @Test
+  public void storeKeepsOnlyGoodFiles() throws IOException {
+    File directory = file.getParentFile();
+    PatternDatabaseStore store = new PatternDatabaseStore(directory);
+    File stored = store.getFile(3, 3);
+    stored.deleteOnExit();
+    assertTrue(file.renameTo(stored));
+
+    PatternDatabase[] mapped = store.get(3, 3);
+    assertNotNull(mapped);
+    assertSame(mapped, store.get(3, 3));
+    assertTrue(store.createHeuristic(3, 3) instanceof PatternHeuristic);
+
+    file = store.getFile(3, 3);
+    flipByte(file.length() - 1);
+    assertNull(new PatternDatabaseStore(directory).get(3, 3));
+    assertTrue(new PatternDatabaseStore(directory).createHeuristic(3, 3) instanceof ManhattanHeuristic);
+    assertTrue(stored.delete());
+  }
+
+  private void assertRejected() {
+    try {
+      PatternDatabaseFile.mapVerified(file);
+      fail("mapped a broken file");
+    } catch (IOException expected) {
+      // ok
+    }
+  }
+
+  private void flipByte(long position) throws IOException {
+    RandomAccessFile output = new RandomAccessFile(file, "rw");
+    try {
+      output.seek(position);
+      int value = output.read();
+      output.seek(position);
+      output.write(value ^ 0x1);
+    } finally {
+      output.close();
+    }
+  }
+
+  private void swapInts(long a, long b) throws IOException {
+    RandomAccessFile output = new RandomAccessFile(file, "rw");
+    try {
+      output.seek(a);
+      int first = output.readInt();
+      output.seek(b);
+      int second = output.readInt();
+      output.seek(a);
+      output.writeInt(second);
+      output.seek(b);
+      output.writeInt(first);
+    } finally {
+      output.close();
+    }
+  }
+
+  private static byte[] readAll(File file) throws IOException {
+    byte[] content = new byte[(int) file.length()];
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      input.readFully(content);
+    } finally {
+      input.close();
+    }
+    return content;
+  }
+}
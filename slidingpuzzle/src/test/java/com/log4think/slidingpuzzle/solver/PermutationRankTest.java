@@ -0,0 +1,50 @@
+package com.log4think.slidingpuzzle.solver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PermutationRankTest {
+
+  @Test
+  public void ranksFullPermutationsInOrder() {
+    PermutationRank ranking = new PermutationRank(4, 4);
+    assertEquals(24, ranking.getCount());
+    assertEquals(0, ranking.rank(new int[] {0, 1, 2, 3}));
+    assertEquals(1, ranking.rank(new int[] {0, 1, 3, 2}));
+    assertEquals(23, ranking.rank(new int[] {3, 2, 1, 0}));
+  }
+
+  @Test
+  public void roundTripsEveryRank() {
+    int[][] shapes = {{9, 9}, {8, 4}, {6, 1}};
+    for (int[] shape : shapes) {
+      PermutationRank ranking = new PermutationRank(shape[0], shape[1]);
+      int[] values = new int[shape[1]];
+      for (long rank = 0; rank < ranking.getCount(); rank++) {
+        ranking.unrank(rank, values);
+        assertEquals(rank, ranking.rank(values));
+      }
+    }
+  }
+
+  @Test
+  public void roundTripsLargeRanks() {
+    // 16 tiles of a 4x4 board need long ranks, 32 values the whole bit mask
+    int[][] shapes = {{16, 16}, {32, 6}, {25, 8}};
+    for (int[] shape : shapes) {
+      PermutationRank ranking = new PermutationRank(shape[0], shape[1]);
+      int[] values = new int[shape[1]];
+      long step = ranking.getCount() / 10007 + 1;
+      for (long rank = 0; rank < ranking.getCount(); rank += step) {
+        ranking.unrank(rank, values);
+        assertEquals(rank, ranking.rank(values));
+      }
+      ranking.unrank(ranking.getCount() - 1, values);
+      assertEquals(ranking.getCount() - 1, ranking.rank(values));
+    }
+  }
+}
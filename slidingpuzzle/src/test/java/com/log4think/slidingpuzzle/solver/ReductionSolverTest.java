@@ -0,0 +1,117 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.log4think.slidingpuzzle.model.Scrambler;
+
+import static com.log4think.slidingpuzzle.solver.IdaStarSolverTest.assertSolves;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ReductionSolverTest {
+
+  @Test
+  public void solvesAnySize() {
+    Random random = new Random(6);
+    int[][] sizes = {{2, 2}, {2, 3}, {3, 2}, {3, 3}, {4, 4}, {5, 4}, {4, 7}, {7, 7}, {12, 9}};
+    for (int[] size : sizes) {
+      ReductionSolver solver = new ReductionSolver(size[0], size[1]);
+      for (int i = 0; i < 20; i++) {
+        int[] tiles = Scrambler.scramble(size[0], size[1], random);
+        assertSolves(size[0], size[1], tiles, solver.solve(tiles));
+      }
+    }
+  }
+
+  @Test
+  public void solvesLargeBoardInCubicMoves() {
+    int[] tiles = Scrambler.scramble(100, 100, 7L);
+    int[] solution = new ReductionSolver(100, 100).solve(tiles);
+    assertSolves(100, 100, tiles, solution);
+    // n^2 tiles travel O(n) cells each at a handful of moves per cell, about 3.3 n^3 in total
+    assertTrue(solution.length < 5 * 100 * 100 * 100);
+  }
+
+  @Test
+  public void solvedBoardNeedsNoMoves() {
+    int[] tiles = new int[12];
+    for (int i = 0; i < tiles.length; i++) {
+      tiles[i] = i;
+    }
+    assertEquals(0, new ReductionSolver(4, 3).solve(tiles).length);
+  }
+
+  @Test
+  public void solvesSingleRowsAndColumns() {
+    Random random = new Random(9);
+    int[][] sizes = {{1, 1}, {1, 2}, {2, 1}, {1, 30}, {30, 1}};
+    for (int[] size : sizes) {
+      ReductionSolver solver = new ReductionSolver(size[0], size[1]);
+      for (int i = 0; i < 20; i++) {
+        int[] tiles = Scrambler.scramble(size[0], size[1], random);
+        assertSolves(size[0], size[1], tiles, solver.solve(tiles));
+      }
+    }
+  }
+
+  @Test
+  public void iteratorPullsTheSameMoves() {
+    Random random = new Random(10);
+    int[][] sizes = {{3, 3}, {1, 9}, {8, 5}, {20, 20}};
+    for (int[] size : sizes) {
+      int[] tiles = Scrambler.scramble(size[0], size[1], random);
+      int[] solution = new ReductionSolver(size[0], size[1]).solve(tiles);
+
+      MoveIterator moves = new ReductionSolver(size[0], size[1]).iterator(tiles);
+      MoveBuffer pulled = new MoveBuffer();
+      while (moves.hasNext()) {
+        pulled.add(moves.next());
+      }
+      assertArrayEquals(solution, pulled.toArray());
+      assertFalse(moves.hasNext());
+    }
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void iteratorEnds() {
+    MoveIterator moves = new ReductionSolver(2, 2).iterator(new int[] {0, 1, 2, 3});
+    moves.next();
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void anotherSolutionInvalidatesTheIterator() {
+    ReductionSolver solver = new ReductionSolver(6, 6);
+    MoveIterator moves = solver.iterator(Scrambler.scramble(6, 6, 11L));
+    moves.next();
+    solver.solve(Scrambler.scramble(6, 6, 12L));
+    while (moves.hasNext()) {
+      moves.next();
+    }
+  }
+
+  @Test
+  public void cancelStopsTheSolve() {
+    ReductionSolver solver = new ReductionSolver(10, 10);
+    int[] tiles = Scrambler.scramble(10, 10, 8L);
+    solver.cancel();
+    assertNull(solver.solve(tiles));
+
+    solver.clearCancel();
+    assertSolves(10, 10, tiles, solver.solve(tiles));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnsolvableBoards() {
+    new ReductionSolver(3, 3).solve(new int[] {1, 0, 2, 3, 4, 5, 6, 7, 8});
+  }
+}
@@ -0,0 +1,153 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ScramblePoolTest {
+  private static final int CAPACITY = 4;
+  private static final long TIMEOUT = 10000;
+  private static final ExactDistanceTable TABLE = ExactDistanceTable.build(3, 3);
+
+  private ScramblePool pool;
+
+  @After
+  public void tearDown() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void knowsTheDiameters() {
+    assertEquals(31, ScramblePool.getDiameter(3, 3));
+    assertEquals(36, ScramblePool.getDiameter(4, 2));
+    assertEquals(80, ScramblePool.getDiameter(4, 4));
+    assertEquals(6, ScramblePool.getDiameter(1, 7));
+    assertEquals(-1, ScramblePool.getDiameter(5, 5));
+
+    assertTrue(ScramblePool.isReachable(3, 3, 31));
+    assertFalse(ScramblePool.isReachable(3, 3, 32));
+    assertFalse(ScramblePool.isReachable(3, 3, 0));
+    assertTrue(ScramblePool.isReachable(5, 5, 200));
+  }
+
+  @Test
+  public void stocksBoardsOfTheWantedDistance() throws InterruptedException {
+    pool = new ScramblePool(3, 3, TABLE, CAPACITY);
+    pool.want(12);
+    pool.want(20);
+    awaitCount(12, CAPACITY);
+    awaitCount(20, CAPACITY);
+
+    int[][] taken = new int[CAPACITY][];
+    for (int i = 0; i < CAPACITY; i++) {
+      taken[i] = pool.take(12);
+      assertNotNull(taken[i]);
+      assertEquals(12, TABLE.getDistance(taken[i]));
+      assertTrue(Board.isSolvable(taken[i], 3));
+      for (int j = 0; j < i; j++) {
+        assertFalse(Arrays.equals(taken[i], taken[j]));
+      }
+    }
+    assertEquals(20, TABLE.getDistance(pool.take(20)));
+
+    // taking refills the bucket
+    awaitCount(12, CAPACITY);
+  }
+
+  @Test
+  public void candidatesGoToTheBucketOfTheirDistance() throws InterruptedException {
+    pool = new ScramblePool(3, 3, TABLE, CAPACITY);
+    pool.want(24);
+    awaitCount(24, CAPACITY);
+
+    int stocked = 0;
+    for (int distance = 1; distance <= 31; distance++) {
+      int count = pool.getCount(distance);
+      assertTrue(count <= CAPACITY);
+      stocked += distance != 24 ? count : 0;
+    }
+    assertTrue(stocked > 0);
+  }
+
+  @Test
+  public void unreachableDistanceIsRejected() {
+    pool = new ScramblePool(3, 3, TABLE, CAPACITY);
+    assertNull(pool.take(32));
+    try {
+      pool.want(32);
+      fail("wanted a distance beyond the diameter");
+    } catch (IllegalArgumentException expected) {
+      // ok
+    }
+  }
+
+  @Test
+  public void missedDistanceIsGivenUp() throws InterruptedException {
+    // every board looks 2 moves away, so a distance of 5 never comes up
+    final AtomicInteger solves = new AtomicInteger();
+    Solver twoMoves = new Solver() {
+      @Override
+      public int[] solve(int[] tiles) {
+        solves.incrementAndGet();
+        return new int[] {Move.UP, Move.DOWN};
+      }
+
+      @Override
+      public void cancel() {
+        // instant anyway
+      }
+
+      @Override
+      public void clearCancel() {
+        // nothing to clear
+      }
+    };
+    pool = new ScramblePool(3, 3, twoMoves, CAPACITY);
+    pool.want(5);
+
+    // wait until the refill has stopped
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    int last = -1;
+    while (last != solves.get()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("still refilling after " + solves.get() + " solves");
+      }
+      last = solves.get();
+      Thread.sleep(200);
+    }
+    assertTrue(last > 0 && last <= 256);
+    assertNull(pool.take(5));
+
+    // wanting it again doesn't start over
+    pool.want(5);
+    Thread.sleep(200);
+    assertEquals(last, solves.get());
+  }
+
+  private void awaitCount(int distance, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (pool.getCount(distance) < count) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("only " + pool.getCount(distance) + " boards of distance " + distance);
+      }
+      Thread.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Scrambler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class StateCodecTest {
+
+  @Test
+  public void packsSolvedBoardByNibbles() {
+    assertEquals(0x3210L, StateCodec.pack(new int[] {0, 1, 2, 3}));
+    assertEquals(0xFEDCBA9876543210L, StateCodec.pack(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15}));
+  }
+
+  @Test
+  public void singleLongRoundTrips() {
+    Random random = new Random(1);
+    int[][] sizes = {{2, 2}, {3, 3}, {2, 4}, {4, 4}};
+    for (int[] size : sizes) {
+      for (int i = 0; i < 100; i++) {
+        int[] tiles = Scrambler.scramble(size[0], size[1], random);
+        long state = StateCodec.pack(tiles);
+        assertTrue(state != 0);
+
+        int[] unpacked = new int[tiles.length];
+        StateCodec.unpack(state, unpacked);
+        assertArrayEquals(tiles, unpacked);
+        for (int position = 0; position < tiles.length; position++) {
+          assertEquals(tiles[position], StateCodec.getTile(state, position));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void swapIsAMove() {
+    Random random = new Random(2);
+    Board board = new Board(4, 4);
+    int[] tiles = new int[16];
+    for (int i = 0; i < 200; i++) {
+      board.copyTiles(tiles);
+      long state = StateCodec.pack(tiles);
+      int from = board.getEmptyPosition();
+      int move = random.nextInt(4);
+      if (board.move(move) < 0) {
+        continue;
+      }
+      board.copyTiles(tiles);
+      assertEquals(StateCodec.pack(tiles), StateCodec.swap(state, from, board.getEmptyPosition()));
+    }
+  }
+
+  @Test
+  public void doubleLongRoundTrips() {
+    Random random = new Random(3);
+    int[][] sizes = {{3, 3}, {4, 4}, {4, 5}, {5, 5}};
+    for (int[] size : sizes) {
+      for (int i = 0; i < 100; i++) {
+        int[] tiles = Scrambler.scramble(size[0], size[1], random);
+        long high = StateCodec.packHigh(tiles), low = StateCodec.packLow(tiles);
+        assertTrue(high != 0 || low != 0);
+
+        int[] unpacked = new int[tiles.length];
+        StateCodec.unpack(high, low, unpacked);
+        assertArrayEquals(tiles, unpacked);
+      }
+    }
+  }
+
+  @Test
+  public void differentBoardsDifferentStates() {
+    Random random = new Random(4);
+    Set<Long> singles = new HashSet<Long>();
+    Set<String> doubles = new HashSet<String>();
+    Set<String> boards = new HashSet<String>();
+    for (int i = 0; i < 1000; i++) {
+      int[] tiles = Scrambler.scramble(4, 4, random);
+      boards.add(Arrays.toString(tiles));
+      singles.add(StateCodec.pack(tiles));
+      doubles.add(StateCodec.packHigh(tiles) + "/" + StateCodec.packLow(tiles));
+    }
+    assertEquals(boards.size(), singles.size());
+    assertEquals(boards.size(), doubles.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void singleLongHoldsAtMost16Cells() {
+    StateCodec.pack(solved(18));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void twoLongsHoldAtMost25Cells() {
+    StateCodec.packHigh(solved(26));
+  }
+
+  private static int[] solved(int size) {
+    int[] tiles = new int[size];
+    for (int i = 0; i < size; i++) {
+      tiles[i] = i;
+    }
+    return tiles;
+  }
+}
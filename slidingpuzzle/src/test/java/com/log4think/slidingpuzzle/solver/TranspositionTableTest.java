@@ -0,0 +1,103 @@
+package com.log4think.slidingpuzzle.solver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class TranspositionTableTest {
+  private static final int MISSING = -1;
+
+  @Test
+  public void growKeepsEveryEntry() {
+    TranspositionTable table = new TranspositionTable(4, TranspositionTable.POLICY_GROW);
+    for (int i = 1; i <= 10000; i++) {
+      table.put(key(i), i);
+    }
+    assertEquals(10000, table.size());
+    assertTrue(table.capacity() >= 10000);
+    for (int i = 1; i <= 10000; i++) {
+      assertEquals(i, table.get(key(i), MISSING));
+    }
+    assertEquals(MISSING, table.get(key(10001), MISSING));
+  }
+
+  @Test
+  public void addIsASet() {
+    TranspositionTable table = new TranspositionTable(16, TranspositionTable.POLICY_GROW);
+    assertTrue(table.add(0x3210L));
+    assertFalse(table.add(0x3210L));
+    assertTrue(table.contains(0x3210L));
+    assertFalse(table.contains(0x2310L));
+    assertEquals(1, table.size());
+
+    table.clear();
+    assertEquals(0, table.size());
+    assertFalse(table.contains(0x3210L));
+  }
+
+  @Test
+  public void pairKeysDifferFromSingleOnes() {
+    TranspositionTable table = new TranspositionTable(16, TranspositionTable.POLICY_GROW);
+    table.put(7, 1);
+    table.put(7, 9, 2);
+    table.put(0, 9, 3);
+    assertEquals(1, table.get(7, MISSING));
+    assertEquals(1, table.get(7, 0, MISSING));
+    assertEquals(2, table.get(7, 9, MISSING));
+    assertEquals(3, table.get(0, 9, MISSING));
+    assertEquals(3, table.size());
+  }
+
+  @Test
+  public void replaceKeepsTheCapacityAndTheNewest() {
+    TranspositionTable table = new TranspositionTable(64, TranspositionTable.POLICY_REPLACE);
+    for (int i = 1; i <= 10000; i++) {
+      table.put(key(i), i);
+      assertEquals(i, table.get(key(i), MISSING));
+    }
+    assertEquals(64, table.capacity());
+    assertTrue(table.size() <= 64);
+
+    // an entry either has its own value or is gone
+    for (int i = 1; i <= 10000; i++) {
+      int value = table.get(key(i), MISSING);
+      assertTrue(value == i || value == MISSING);
+    }
+  }
+
+  @Test
+  public void keepLargerEvictsTheSmallest() {
+    // a single slot, so every key probes the same one
+    TranspositionTable table = new TranspositionTable(1, TranspositionTable.POLICY_KEEP_LARGER);
+    table.put(key(1), 5);
+    table.put(key(2), 3);
+    assertEquals(5, table.get(key(1), MISSING));
+    assertFalse(table.contains(key(2)));
+
+    table.put(key(3), 7);
+    assertEquals(7, table.get(key(3), MISSING));
+    assertFalse(table.contains(key(1)));
+
+    // the same key only ever gets larger
+    table.put(key(3), 2);
+    assertEquals(7, table.get(key(3), MISSING));
+    assertEquals(1, table.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void zeroIsNoKey() {
+    new TranspositionTable(16, TranspositionTable.POLICY_GROW).put(0, 1);
+  }
+
+  /**
+   * distinct keys that look like packed 4x4 boards, the nibbles of the last cells counting up
+   */
+  private static long key(int i) {
+    return 0x0000000076543210L ^ ((long) i << 32);
+  }
+}
@@ -0,0 +1,46 @@
+package com.log4think.slidingpuzzle.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class XoshiroRandomTest {
+
+  @Test
+  public void matchesTheReferenceSequence() {
+    // xoshiro256** seeded by splitmix64 from 0, as in the reference implementations
+    XoshiroRandom random = new XoshiroRandom(0);
+    assertEquals(0x99EC5F36CB75F2B4L, random.nextLong());
+    assertEquals(0xBF6E1F784956452AL, random.nextLong());
+    assertEquals(0x1A5F849D4933E6E0L, random.nextLong());
+  }
+
+  @Test
+  public void setSeedRestarts() {
+    XoshiroRandom random = new XoshiroRandom(42);
+    long[] first = new long[8];
+    for (int i = 0; i < first.length; i++) {
+      first[i] = random.nextLong();
+    }
+
+    random.setSeed(42);
+    for (long value : first) {
+      assertEquals(value, random.nextLong());
+    }
+  }
+
+  @Test
+  public void boundedIntsStayInRange() {
+    XoshiroRandom random = new XoshiroRandom(7);
+    int[] counts = new int[6];
+    for (int i = 0; i < 6000; i++) {
+      counts[random.nextInt(6)]++;
+    }
+    for (int count : counts) {
+      assertEquals(1000, count, 150);
+    }
+  }
+}
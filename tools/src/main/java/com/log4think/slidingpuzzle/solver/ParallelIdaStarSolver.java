@@ -0,0 +1,209 @@
+package com.log4think.slidingpuzzle.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.model.Move;
+
+/**
+ * IDA* with the search tree split among the threads of a {@link ForkJoinPool}.
+ *
+ * The tree is expanded breadth first to a shallow depth once, every node there is the root of a
+ * subtree task. Each iteration runs all subtrees against the same bound, idle threads steal the
+ * remaining tasks. The first solution found stops every worker; it has the length of the bound,
+ * which is optimal because the previous bound had no solution, so the result always has the
+ * length of {@link IdaStarSolver}'s.
+ *
+ * It is built with the desktop tools, since ForkJoinPool needs API 21 on Android. Every solver
+ * owns its pool, its threads stay until {@link #shutdown()}.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ParallelIdaStarSolver implements Solver {
+  private static final int TASKS_PER_THREAD = 32;
+  private static final int MAX_SPLIT_DEPTH = 16;
+
+  private final int colCount, rowCount;
+  private final Heuristic heuristic;
+  private final int threads;
+  private final ForkJoinPool pool;
+  private final AtomicBoolean stopped = new AtomicBoolean();
+  private final ThreadLocal<IdaStarSolver> workers;
+
+  private final AtomicReference<int[]> solution = new AtomicReference<int[]>();
+  private final AtomicInteger nextBound = new AtomicInteger();
+  private final AtomicLong nodeCount = new AtomicLong();
+  private volatile boolean cancelled;
+
+  public ParallelIdaStarSolver(int colCount, int rowCount, Heuristic heuristic, int threads) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.heuristic = heuristic;
+    this.threads = threads;
+    this.pool = new ForkJoinPool(threads);
+    this.workers = new ThreadLocal<IdaStarSolver>() {
+      @Override
+      protected IdaStarSolver initialValue() {
+        return new IdaStarSolver(ParallelIdaStarSolver.this.colCount, ParallelIdaStarSolver.this.rowCount,
+            ParallelIdaStarSolver.this.heuristic.copy(), stopped);
+      }
+    };
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public long getNodeCount() {
+    return nodeCount.get();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the board can't be solved
+   */
+  @Override
+  public synchronized int[] solve(int[] initial) {
+    if (initial.length != colCount * rowCount) {
+      throw new IllegalArgumentException("expect " + colCount * rowCount + " tiles, got " + initial.length);
+    }
+    if (!Board.isSolvable(initial, colCount)) {
+      throw new IllegalArgumentException("board is not solvable");
+    }
+
+    nodeCount.set(0);
+
+    List<int[]> prefixes = new ArrayList<int[]>();
+    int[] shallow = split(initial, prefixes);
+    if (shallow != null) {
+      return shallow;
+    }
+    int[][] roots = prefixes.toArray(new int[prefixes.size()][]);
+
+    int bound = heuristic.copy().reset(initial);
+    while (!cancelled) {
+      stopped.set(false);
+      if (cancelled) {
+        break;
+      }
+      solution.set(null);
+      nextBound.set(Integer.MAX_VALUE);
+
+      pool.invoke(new Subtrees(initial, roots, 0, roots.length, bound));
+
+      if (solution.get() != null) {
+        return solution.get();
+      }
+      bound = nextBound.get();
+    }
+    return null;
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+    stopped.set(true);
+  }
+
+  @Override
+  public void clearCancel() {
+    cancelled = false;
+  }
+
+  /**
+   * cancel a running solve and stop the threads, the solver can't be used any more
+   */
+  public void shutdown() {
+    cancel();
+    pool.shutdownNow();
+  }
+
+  /**
+   * expand breadth first until there are enough subtrees for the threads
+   *
+   * @param prefixes receives the move sequences to the roots of the subtrees
+   * @return the solution if the board is solved within the split depth, otherwise null
+   */
+  private int[] split(int[] initial, List<int[]> prefixes) {
+    Board board = new Board(colCount, rowCount);
+    prefixes.add(new int[0]);
+
+    for (int depth = 0; depth < MAX_SPLIT_DEPTH && prefixes.size() < threads * TASKS_PER_THREAD; depth++) {
+      List<int[]> children = new ArrayList<int[]>();
+      for (int[] prefix : prefixes) {
+        board.setTiles(initial);
+        for (int move : prefix) {
+          board.move(move);
+        }
+        if (board.isSolved()) {
+          return prefix;
+        }
+
+        int last = prefix.length > 0 ? prefix[prefix.length - 1] : Move.NONE;
+        for (int move = Move.UP; move <= Move.RIGHT; move++) {
+          if ((last != Move.NONE && move == Move.inverse(last)) || !board.canMove(move)) {
+            continue;
+          }
+          int[] child = new int[prefix.length + 1];
+          System.arraycopy(prefix, 0, child, 0, prefix.length);
+          child[prefix.length] = move;
+          children.add(child);
+        }
+      }
+      prefixes.clear();
+      prefixes.addAll(children);
+    }
+    return null;
+  }
+
+  private class Subtrees extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] initial;
+    private final int[][] roots;
+    private final int from, to;
+    private final int bound;
+
+    Subtrees(int[] initial, int[][] roots, int from, int to, int bound) {
+      this.initial = initial;
+      this.roots = roots;
+      this.from = from;
+      this.to = to;
+      this.bound = bound;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Subtrees(initial, roots, from, middle, bound), new Subtrees(initial, roots, middle, to, bound));
+        return;
+      }
+      if (stopped.get()) {
+        return;
+      }
+
+      IdaStarSolver worker = workers.get();
+      long nodes = worker.getNodeCount();
+      int result = worker.searchSubtree(initial, roots[from], bound);
+      nodeCount.addAndGet(worker.getNodeCount() - nodes);
+
+      if (result == IdaStarSolver.FOUND) {
+        if (solution.compareAndSet(null, worker.getSolution())) {
+          stopped.set(true);
+        }
+      } else if (result != IdaStarSolver.CANCELLED) {
+        int current = nextBound.get();
+        while (result < current && !nextBound.compareAndSet(current, result)) {
+          current = nextBound.get();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.log4think.slidingpuzzle.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.log4think.slidingpuzzle.solver.ExactDistanceTable;
+
+/**
+ * Writes the exact distance tables shipped in the assets, run on a desktop JVM:
+ * <pre>
+ *   java ExactDistanceTableGenerator [output directory] [colCount rowCount]...
+ * </pre>
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ExactDistanceTableGenerator {
+
+  public static void main(String[] args) throws IOException {
+    File directory = new File(args.length > 0 ? args[0] : ".");
+    int[] sizes = {3, 3, 2, 4, 4, 2};
+    if (args.length > 2) {
+      sizes = new int[args.length - 1];
+      for (int i = 1; i < args.length; i++) {
+        sizes[i - 1] = Integer.parseInt(args[i]);
+      }
+    }
+
+    for (int i = 0; i + 1 < sizes.length; i += 2) {
+      long start = System.currentTimeMillis();
+      ExactDistanceTable table = ExactDistanceTable.build(sizes[i], sizes[i + 1]);
+      File file = new File(directory, ExactDistanceTable.getAssetName(sizes[i], sizes[i + 1]));
+
+      OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+      try {
+        table.write(out);
+      } finally {
+        out.close();
+      }
+      System.out.printf("wrote %s in %d ms%n", file, System.currentTimeMillis() - start);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.log4think.slidingpuzzle.tools;
+
+import java.io.File;
+import java.util.Random;
+
+import com.log4think.slidingpuzzle.model.Board;
+import com.log4think.slidingpuzzle.solver.Heuristic;
+import com.log4think.slidingpuzzle.solver.IdaStarSolver;
+import com.log4think.slidingpuzzle.solver.ParallelIdaStarSolver;
+import com.log4think.slidingpuzzle.solver.PatternDatabaseStore;
+
+/**
+ * Speed-up of {@link ParallelIdaStarSolver} over {@link IdaStarSolver} at 1, 2, 4 and 8 threads on
+ * the same random boards, run on a desktop JVM:
+ * <pre>
+ *   java ParallelSolverBenchmark [pattern database directory] [boards] [colCount rowCount]
+ * </pre>
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class ParallelSolverBenchmark {
+
+  public static void main(String[] args) {
+    File directory = new File(args.length > 0 ? args[0] : ".");
+    int count = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int colCount = args.length > 3 ? Integer.parseInt(args[2]) : 4;
+    int rowCount = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+    Heuristic heuristic = new PatternDatabaseStore(directory).createHeuristic(colCount, rowCount);
+    System.out.printf("%dx%d, %d boards, %s%n", colCount, rowCount, count, heuristic.getClass().getSimpleName());
+
+    int[][] boards = randomBoards(colCount, rowCount, count, 42);
+    int[] lengths = new int[count];
+
+    IdaStarSolver sequential = new IdaStarSolver(colCount, rowCount, heuristic.copy());
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      lengths[i] = sequential.solve(boards[i]).length;
+    }
+    long baseline = System.nanoTime() - start;
+    System.out.printf("sequential   %8d ms%n", baseline / 1000000);
+
+    for (int threads = 1; threads <= 8; threads *= 2) {
+      ParallelIdaStarSolver solver = new ParallelIdaStarSolver(colCount, rowCount, heuristic.copy(), threads);
+      start = System.nanoTime();
+      try {
+        for (int i = 0; i < count; i++) {
+          int length = solver.solve(boards[i]).length;
+          if (length != lengths[i]) {
+            throw new IllegalStateException("board " + i + ": " + length + " moves instead of " + lengths[i]);
+          }
+        }
+      } finally {
+        solver.shutdown();
+      }
+      long elapsed = System.nanoTime() - start;
+      System.out.printf("%d thread(s)  %8d ms, speed-up %.2f%n", threads, elapsed / 1000000, (double) baseline / elapsed);
+    }
+  }
+
+  private static int[][] randomBoards(int colCount, int rowCount, int count, long seed) {
+    Random random = new Random(seed);
+    int size = colCount * rowCount;
+    int[][] boards = new int[count][size];
+    for (int[] tiles : boards) {
+      do {
+        for (int i = 0; i < size; i++) {
+          tiles[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+          int j = random.nextInt(i + 1);
+          int tile = tiles[i];
+          tiles[i] = tiles[j];
+          tiles[j] = tile;
+        }
+      } while (!Board.isSolvable(tiles, colCount));
+    }
+    return boards;
+  }
+}
@@ -0,0 +1,53 @@
+package com.log4think.slidingpuzzle.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.log4think.slidingpuzzle.solver.PatternDatabase;
+import com.log4think.slidingpuzzle.solver.PatternDatabaseFile;
+import com.log4think.slidingpuzzle.solver.PatternDatabaseStore;
+import com.log4think.slidingpuzzle.solver.PatternPartitions;
+
+/**
+ * Offline generator of the pattern database files, run on a desktop JVM:
+ * <pre>
+ *   java -Xmx6g PatternDatabaseGenerator 4x4-663|4x4-78|5x5-6666 [output directory]
+ * </pre>
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PatternDatabaseGenerator {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: PatternDatabaseGenerator 4x4-663|4x4-78|5x5-6666 [output directory]");
+      System.exit(1);
+    }
+
+    int colCount, rowCount;
+    int[][] partition;
+    if ("4x4-663".equals(args[0])) {
+      colCount = rowCount = 4;
+      partition = PatternPartitions.PARTITION_4X4_663;
+    } else if ("4x4-78".equals(args[0])) {
+      colCount = rowCount = 4;
+      partition = PatternPartitions.PARTITION_4X4_78;
+    } else if ("5x5-6666".equals(args[0])) {
+      colCount = rowCount = 5;
+      partition = PatternPartitions.PARTITION_5X5_6666;
+    } else {
+      throw new IllegalArgumentException("unknown partition " + args[0]);
+    }
+
+    File directory = new File(args.length > 1 ? args[1] : ".");
+    File file = new PatternDatabaseStore(directory).getFile(colCount, rowCount);
+
+    long start = System.currentTimeMillis();
+    PatternDatabase[] databases = PatternPartitions.build(colCount, rowCount, partition);
+    System.out.printf("built %s in %d ms%n", args[0], System.currentTimeMillis() - start);
+
+    PatternDatabaseFile.write(file, databases);
+    System.out.printf("wrote %s, %d bytes, checksum %s%n", file, file.length(),
+        PatternDatabaseFile.verify(file) ? "ok" : "FAILED");
+  }
+}
@@ -0,0 +1,68 @@
+package com.log4think.slidingpuzzle.tools;
+
+import java.util.Random;
+
+import com.log4think.slidingpuzzle.solver.PermutationRank;
+
+/**
+ * Throughput of {@link PermutationRank} for the shapes used by the solvers, run on a desktop JVM:
+ * <pre>
+ *   java PermutationRankBenchmark [iterations]
+ * </pre>
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class PermutationRankBenchmark {
+  private static final int SAMPLES = 1 << 12;
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+
+    // pattern database placements, exact tables and whole state spaces
+    int[][] shapes = {{16, 6}, {16, 8}, {25, 6}, {9, 9}, {12, 12}, {16, 16}};
+    for (int[] shape : shapes) {
+      run(new PermutationRank(shape[0], shape[1]), iterations);
+    }
+  }
+
+  private static void run(PermutationRank ranking, int iterations) {
+    Random random = new Random(ranking.getValueCount() * 31 + ranking.getLength());
+    int[][] samples = new int[SAMPLES][ranking.getValueCount()];
+    long[] ranks = new long[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      ranks[i] = (long) (random.nextDouble() * ranking.getCount());
+      ranking.unrank(ranks[i], samples[i]);
+    }
+
+    // warm up, and check the round trip
+    long checksum = 0;
+    for (int i = 0; i < SAMPLES; i++) {
+      if (ranking.rank(samples[i]) != ranks[i]) {
+        throw new IllegalStateException("rank mismatch at " + ranks[i]);
+      }
+    }
+
+    int[] values = new int[ranking.getValueCount()];
+    long start = System.nanoTime();
+    for (int n = 0; n < iterations; n++) {
+      for (int i = 0; i < SAMPLES; i++) {
+        checksum += ranking.rank(samples[i]);
+      }
+    }
+    long rankNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int n = 0; n < iterations; n++) {
+      for (int i = 0; i < SAMPLES; i++) {
+        ranking.unrank(ranks[i], values);
+        checksum += values[0];
+      }
+    }
+    long unrankNanos = System.nanoTime() - start;
+
+    double operations = (double) iterations * SAMPLES;
+    System.out.printf("%2d of %2d: rank %6.1f M/s, unrank %6.1f M/s (%d)%n",
+        ranking.getLength(), ranking.getValueCount(),
+        operations * 1000 / rankNanos, operations * 1000 / unrankNanos, checksum & 0xF);
+  }
+}
@@ -0,0 +1,209 @@
+package com.log4think.slidingpuzzle.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.log4think.slidingpuzzle.model.Move;
+import com.log4think.slidingpuzzle.solver.IdaStarSolver;
+import com.log4think.slidingpuzzle.solver.PermutationRank;
+
+/**
+ * Enumerates every reachable state of a board shape by a level synchronous breadth first search,
+ * run on a desktop JVM:
+ * <pre>
+ *   java -Xmx2g StateSpaceAnalyzer colCount rowCount [threads]
+ * </pre>
+ *
+ * Visited, frontier and next level are bit sets indexed by the full permutation rank, so 3x4
+ * with 12! ranks needs 3 x 60MB. Every level is expanded by fork/join tasks over ranges of the
+ * frontier words; the only shared write is setting a bit of the next level with a CAS.
+ *
+ * Prints the number of states at every distance, the diameter and the antipodal positions.
+ *
+ * @author liujinyu <simon.jinyu.liu@gmail.com>
+ */
+public class StateSpaceAnalyzer {
+  private static final int MAX_SIZE = 13;
+  private static final int LEAF_WORDS = 1 << 10;
+
+  private final int colCount, rowCount;
+  private final int size;
+  private final PermutationRank ranking;
+  private final int[] neighbors;
+  private final ForkJoinPool pool;
+
+  private final long[] visited;
+  private long[] frontier;
+  private AtomicLongArray next;
+
+  public StateSpaceAnalyzer(int colCount, int rowCount, int threads) {
+    this.colCount = colCount;
+    this.rowCount = rowCount;
+    this.size = colCount * rowCount;
+    if (size > MAX_SIZE) {
+      throw new IllegalArgumentException("board " + colCount + "x" + rowCount + " is too large");
+    }
+
+    this.ranking = new PermutationRank(size, size);
+    this.neighbors = IdaStarSolver.createNeighbors(colCount, rowCount);
+    this.pool = new ForkJoinPool(threads);
+
+    int words = (int) ((ranking.getCount() + 63) >>> 6);
+    this.visited = new long[words];
+    this.frontier = new long[words];
+    this.next = new AtomicLongArray(words);
+  }
+
+  /**
+   * @return the number of states at every distance from the solved board
+   */
+  public long[] run() {
+    int[] tiles = new int[size];
+    for (int i = 0; i < size; i++) {
+      tiles[i] = i;
+    }
+    long goal = ranking.rank(tiles);
+    set(visited, goal);
+    set(frontier, goal);
+
+    List<Long> histogram = new ArrayList<Long>();
+    histogram.add(1L);
+
+    while (true) {
+      final AtomicLong discovered = new AtomicLong();
+      pool.invoke(new Expand(0, frontier.length, discovered));
+      if (discovered.get() == 0) {
+        break;
+      }
+      histogram.add(discovered.get());
+
+      // the next level becomes the frontier
+      for (int i = 0; i < frontier.length; i++) {
+        long word = next.get(i);
+        frontier[i] = word;
+        visited[i] |= word;
+        next.set(i, 0);
+      }
+    }
+
+    long[] result = new long[histogram.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = histogram.get(i);
+    }
+    return result;
+  }
+
+  private class Expand extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from, to;
+    private final AtomicLong discovered;
+
+    Expand(int from, int to, AtomicLong discovered) {
+      this.from = from;
+      this.to = to;
+      this.discovered = discovered;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > LEAF_WORDS) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new Expand(from, middle, discovered), new Expand(middle, to, discovered));
+        return;
+      }
+
+      int[] tiles = new int[size];
+      long count = 0;
+      for (int i = from; i < to; i++) {
+        long word = frontier[i];
+        while (word != 0) {
+          long rank = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+          word &= word - 1;
+          count += expand(rank, tiles);
+        }
+      }
+      discovered.addAndGet(count);
+    }
+
+    private int expand(long rank, int[] tiles) {
+      ranking.unrank(rank, tiles);
+      int empty = 0;
+      while (tiles[empty] != size - 1) {
+        empty++;
+      }
+
+      int count = 0;
+      for (int move = Move.UP; move <= Move.RIGHT; move++) {
+        int target = neighbors[empty * 4 + move];
+        if (target < 0) {
+          continue;
+        }
+
+        tiles[empty] = tiles[target];
+        tiles[target] = size - 1;
+        long neighbor = ranking.rank(tiles);
+        tiles[target] = tiles[empty];
+        tiles[empty] = size - 1;
+
+        if (!isSet(visited, neighbor) && setAtomic(next, neighbor)) {
+          count++;
+        }
+      }
+      return count;
+    }
+  }
+
+  private static boolean isSet(long[] bits, long index) {
+    return (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+  }
+
+  private static void set(long[] bits, long index) {
+    bits[(int) (index >>> 6)] |= 1L << index;
+  }
+
+  /**
+   * @return true if this call set the bit
+   */
+  private static boolean setAtomic(AtomicLongArray bits, long index) {
+    int i = (int) (index >>> 6);
+    long mask = 1L << index;
+    while (true) {
+      long word = bits.get(i);
+      if ((word & mask) != 0) {
+        return false;
+      }
+      if (bits.compareAndSet(i, word, word | mask)) {
+        return true;
+      }
+    }
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      System.err.println("usage: StateSpaceAnalyzer colCount rowCount [threads]");
+      System.exit(1);
+    }
+
+    int colCount = Integer.parseInt(args[0]);
+    int rowCount = Integer.parseInt(args[1]);
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+    long start = System.currentTimeMillis();
+    long[] histogram = new StateSpaceAnalyzer(colCount, rowCount, threads).run();
+    long elapsed = System.currentTimeMillis() - start;
+
+    long total = 0;
+    for (int distance = 0; distance < histogram.length; distance++) {
+      System.out.printf("%3d %,15d%n", distance, histogram[distance]);
+      total += histogram[distance];
+    }
+    System.out.printf("board %dx%d, %d threads, %d ms%n", colCount, rowCount, threads, elapsed);
+    System.out.printf("reachable states %,d, diameter %d, antipodal positions %,d%n",
+        total, histogram.length - 1, histogram[histogram.length - 1]);
+  }
+}